@@ -2,23 +2,79 @@ package jpabook.jpashop;
 
 import jpabook.jpashop.domain.*;
 import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.AddressRepository;
+import jpabook.jpashop.repository.MemberOrderStatsRepository;
+import jpabook.jpashop.service.Aggregate;
+import jpabook.jpashop.service.AggregateChangedEvent;
+import jpabook.jpashop.service.DeliveryBatcher;
+import jpabook.jpashop.service.DeliveryStatusCounter;
+import jpabook.jpashop.service.LowStockWatermarks;
+import jpabook.jpashop.service.PriceHistory;
+import jpabook.jpashop.service.StockLedger;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.annotation.PostConstruct;
 import javax.persistence.EntityManager;
 
+/**
+ * 샘플 데이터 적재
+ * jpashop.init-db.async=true 이면 기동 경로에서 빼고, 기동이 끝난(ApplicationReady) 뒤에 별도 스레드에서 적재한다
+ */
+@Slf4j
 @Component
 @RequiredArgsConstructor
 public class InitDb {
 
     private final InitService initService;
+    private final DeliveryStatusCounter deliveryStatusCounter;
+    private final DeliveryBatcher deliveryBatcher;
+    private final PriceHistory priceHistory;
+    private final LowStockWatermarks lowStockWatermarks;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${jpashop.init-db.async:false}")
+    private boolean async;
 
     @PostConstruct
     public void init() {
+        if (!async) {
+            seed();
+        }
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void initAfterReady() {
+        if (!async) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        seed();
+
+        // 기동 시점에 만들어진 카탈로그 스냅샷, 배송 상태 건수/묶음, 가격 이력, 재고 알림 기준, ETag 버전을 다시 맞춘다
+        // (ApplicationReady 의 reload 가 적재 도중의 테이블을 읽고 그 사이 커밋된 반영분을 덮어쓸 수 있으므로)
+        for (Aggregate aggregate : Aggregate.values()) {
+            eventPublisher.publishEvent(new AggregateChangedEvent(aggregate));
+        }
+        deliveryStatusCounter.reload();
+        deliveryBatcher.reload();
+        priceHistory.reload();
+        lowStockWatermarks.reload();
+        log.info("sample data loaded after ready in {}ms", System.currentTimeMillis() - start);
+    }
+
+    private void seed() {
         initService.dbInit1();
         initService.dbInit2();
+        initService.recalculateMemberStats();
     }
 
     @Component
@@ -27,6 +83,10 @@ public class InitDb {
     static class InitService {
 
         private final EntityManager em;
+        private final AddressRepository addressRepository;
+        private final MemberOrderStatsRepository memberOrderStatsRepository;
+        private final StockLedger stockLedger;
+        private final PriceHistory priceHistory;
 
         public void dbInit1() {
             Member member = createMember("userA", "1", "111");
@@ -37,6 +97,10 @@ public class InitDb {
 
             em.persist(book1);
             em.persist(book2);
+            stockLedger.record(book1.getId(), book1.getStockQuantity(), StockChangeReason.RECEIVE, null);
+            priceHistory.record(book1.getId(), book1.getPrice());
+            stockLedger.record(book2.getId(), book2.getStockQuantity(), StockChangeReason.RECEIVE, null);
+            priceHistory.record(book2.getId(), book2.getPrice());
 
             OrderItem orderItem1 = OrderItem.createOrderItem(book1, 10000, 1);
             OrderItem orderItem2 = OrderItem.createOrderItem(book2, 20000, 2);
@@ -45,6 +109,7 @@ public class InitDb {
 
             Order order = Order.createOrder(member, delivery, orderItem1, orderItem2);
             em.persist(order);
+            stockLedger.recordOrdered(order);
 
 
         }
@@ -58,6 +123,10 @@ public class InitDb {
 
             em.persist(book1);
             em.persist(book2);
+            stockLedger.record(book1.getId(), book1.getStockQuantity(), StockChangeReason.RECEIVE, null);
+            priceHistory.record(book1.getId(), book1.getPrice());
+            stockLedger.record(book2.getId(), book2.getStockQuantity(), StockChangeReason.RECEIVE, null);
+            priceHistory.record(book2.getId(), book2.getPrice());
 
             OrderItem orderItem1 = OrderItem.createOrderItem(book1, 20000, 4);
             OrderItem orderItem2 = OrderItem.createOrderItem(book2, 40000, 3);
@@ -66,6 +135,12 @@ public class InitDb {
 
             Order order = Order.createOrder(member, delivery, orderItem1, orderItem2);
             em.persist(order);
+            stockLedger.recordOrdered(order);
+        }
+
+        // 주문을 서비스를 거치지 않고 저장했으므로 회원별 주문 수/금액을 다시 계산한다
+        public void recalculateMemberStats() {
+            memberOrderStatsRepository.recalculateAll();
         }
 
         private Book createBook(String name, int price, int stockQuantity) {
@@ -79,7 +154,7 @@ public class InitDb {
         private Member createMember(String name, String street, String zipcode) {
             Member member = new Member();
             member.setName(name);
-            member.setAddress(new Address("seoul", street, zipcode));
+            member.setAddress(addressRepository.save(new Address("seoul", street, zipcode)));
             return member;
         }
 
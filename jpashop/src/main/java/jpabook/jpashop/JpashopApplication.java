@@ -1,8 +1,16 @@
 package jpabook.jpashop;
 
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
+@EnableAsync
+@EnableScheduling
 @SpringBootApplication
 public class JpashopApplication {
 
@@ -14,4 +22,13 @@ public class JpashopApplication {
 //	Hibernate5Module hibernate5Module() {
 //		return new Hibernate5Module();
 //	}
+
+	/**
+	 * Accept: application/cbor 요청은 JSON 대신 CBOR(바이너리)로 응답한다
+	 * JSON과 같은 ObjectMapper 설정(날짜 포맷 등)을 사용한다
+	 */
+	@Bean
+	MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+		return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+	}
 }
@@ -0,0 +1,77 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.service.CartService;
+import jpabook.jpashop.service.CartService.CartView;
+import jpabook.jpashop.web.AdmissionControlled;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+
+import javax.validation.Valid;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+@RestController
+@RequiredArgsConstructor
+public class CartApiController {
+
+    private final CartService cartService;
+
+    @GetMapping("/api/members/{memberId}/cart")
+    public CartView cart(@PathVariable Long memberId) {
+        return cartService.find(memberId);
+    }
+
+    /**
+     * 담기, 이미 있는 상품이면 수량을 더한다
+     */
+    @PostMapping("/api/members/{memberId}/cart/items")
+    public CartView add(@PathVariable Long memberId, @RequestBody @Valid AddCartItemRequest request) {
+        cartService.add(memberId, request.getItemId(), request.getCount());
+        return cartService.find(memberId);
+    }
+
+    /**
+     * 수량 변경, 0 이면 뺀다
+     */
+    @PutMapping("/api/members/{memberId}/cart/items/{itemId}")
+    public CartView change(@PathVariable Long memberId, @PathVariable Long itemId, @RequestParam int count) {
+        cartService.change(memberId, itemId, count);
+        return cartService.find(memberId);
+    }
+
+    @DeleteMapping("/api/members/{memberId}/cart/items/{itemId}")
+    public CartView remove(@PathVariable Long memberId, @PathVariable Long itemId) {
+        cartService.remove(memberId, itemId);
+        return cartService.find(memberId);
+    }
+
+    @DeleteMapping("/api/members/{memberId}/cart")
+    public void clear(@PathVariable Long memberId) {
+        cartService.clear(memberId);
+    }
+
+    /**
+     * 장바구니 전체를 주문 하나로
+     */
+    @PostMapping("/api/members/{memberId}/cart/checkout")
+    @AdmissionControlled
+    public CheckoutResponse checkout(@PathVariable Long memberId) {
+        return new CheckoutResponse(cartService.checkout(memberId));
+    }
+
+    @Data
+    static class AddCartItemRequest {
+        @NotNull
+        private Long itemId;
+        @Min(1)
+        private int count;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class CheckoutResponse {
+        private Long orderId;
+    }
+}
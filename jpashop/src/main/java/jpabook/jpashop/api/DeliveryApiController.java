@@ -0,0 +1,88 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.domain.DeliveryStatus;
+import jpabook.jpashop.service.DeliveryBatcher;
+import jpabook.jpashop.service.DeliveryBatcher.Batch;
+import jpabook.jpashop.service.DeliveryService;
+import jpabook.jpashop.service.DeliveryStatusCounter;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequiredArgsConstructor
+public class DeliveryApiController {
+
+    private final DeliveryService deliveryService;
+    private final DeliveryStatusCounter deliveryStatusCounter;
+    private final DeliveryBatcher deliveryBatcher;
+
+    @PutMapping("/api/deliveries/{id}/status")
+    public void changeStatus(@PathVariable("id") Long id,
+                             @RequestBody @Valid ChangeStatusRequest request) {
+        deliveryService.changeStatus(id, request.getStatus());
+    }
+
+    /**
+     * 배송 상태 일괄 변경 (fulfillment feed)
+     */
+    @PostMapping("/api/deliveries/status")
+    public BulkChangeStatusResponse changeStatusAll(@RequestBody @Valid BulkChangeStatusRequest request) {
+        int updated = deliveryService.changeStatusAll(request.getDeliveryIds(), request.getStatus());
+        return new BulkChangeStatusResponse(request.getDeliveryIds().size(), updated);
+    }
+
+    /**
+     * 상태별 배송 건수, DB를 조회하지 않고 캐시된 값을 반환한다
+     */
+    @GetMapping("/api/deliveries/status-counts")
+    public Map<DeliveryStatus, Long> statusCounts() {
+        return deliveryStatusCounter.getCounts();
+    }
+
+    /**
+     * 배송 준비 중인 배송을 지역(우편번호 앞자리)별로 나눈 묶음, DB를 조회하지 않고 인덱스에서 만든다
+     */
+    @GetMapping("/api/deliveries/batches")
+    public BatchesResponse batches(@RequestParam(value = "region", required = false) String region) {
+        List<Batch> batches = deliveryBatcher.getBatches(region);
+        int deliveries = batches.stream().mapToInt(batch -> batch.getDeliveries().size()).sum();
+        return new BatchesResponse(deliveryBatcher.getBatchSize(), deliveries, batches);
+    }
+
+    @Data
+    static class ChangeStatusRequest {
+        @NotNull
+        private DeliveryStatus status;
+    }
+
+    @Data
+    static class BulkChangeStatusRequest {
+        @NotNull
+        private DeliveryStatus status;
+        @NotEmpty
+        private List<Long> deliveryIds;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class BulkChangeStatusResponse {
+        private int requested;
+        private int updated;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class BatchesResponse {
+        private int batchSize;
+        private int deliveries;
+        private List<Batch> batches;
+    }
+}
@@ -1,7 +1,15 @@
 package jpabook.jpashop.api;
 
 import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.exception.BadRequestException;
+import jpabook.jpashop.exception.NotFoundException;
+import jpabook.jpashop.repository.MemberOrderStatsRepository;
+import jpabook.jpashop.repository.order.query.MemberOrderQueryDto;
+import jpabook.jpashop.repository.order.query.OrderCursor;
+import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import jpabook.jpashop.service.Aggregate;
 import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.web.VersionedResource;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
@@ -17,7 +25,11 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class MemberApiController {
 
+    private static final int MAX_ORDER_PAGE_SIZE = 100;
+
     private final MemberService memberService;
+    private final OrderQueryRepository orderQueryRepository;
+    private final MemberOrderStatsRepository memberOrderStatsRepository;
 
     /**
      * 수정
@@ -77,6 +89,7 @@ public class MemberApiController {
      * 3. API 스펙 확장에 열려있게된다.
      */
     @GetMapping("/api/v2/members")
+    @VersionedResource(Aggregate.MEMBER)
     public Result getMemberV2() {
         List<Member> findMembers = memberService.findAllMembers();
         List<MemberDto> collect = findMembers.stream()
@@ -86,6 +99,54 @@ public class MemberApiController {
         return new Result(collect.size(), collect);
     }
 
+    /**
+     * 회원 주문 내역
+     * Member.orders 컬렉션을 읽지 않고 최신순으로 limit 건씩 keyset 페이징한다
+     * 다음 페이지는 응답의 nextCursor 를 cursor 로 넘긴다 (없으면 마지막 페이지)
+     * 주문 수/누적 금액은 집계하지 않고 회원에 저장된 값을 그대로 쓴다 (엔티티가 아닌 update 로 증감한 최신 값)
+     * 회원이 없으면 404, cursor 형식이 잘못되면 400
+     */
+    @GetMapping("/api/members/{id}/orders")
+    public MemberOrdersResponse memberOrders(@PathVariable("id") Long id,
+                                            @RequestParam(value = "cursor", required = false) String cursor,
+                                            @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        OrderCursor after = cursor == null ? null : decodeCursor(cursor);
+        long[] stats = memberOrderStatsRepository.find(id);
+        if (stats == null) {
+            throw new NotFoundException("회원이 없습니다. memberId=" + id);
+        }
+        int size = Math.max(1, Math.min(limit, MAX_ORDER_PAGE_SIZE));
+
+        // 다음 페이지가 있는지 알기 위해 한 건 더 읽는다
+        List<MemberOrderQueryDto> orders = orderQueryRepository.findMemberOrders(id, after, size + 1);
+
+        String nextCursor = null;
+        if (orders.size() > size) {
+            orders = orders.subList(0, size);
+            MemberOrderQueryDto last = orders.get(size - 1);
+            nextCursor = new OrderCursor(last.getOrderDate(), last.getOrderId()).encode();
+        }
+        return new MemberOrdersResponse(id, stats[0], stats[1], orders, nextCursor);
+    }
+
+    private static OrderCursor decodeCursor(String cursor) {
+        try {
+            return OrderCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException(e.getMessage(), e);
+        }
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class MemberOrdersResponse {
+        private Long memberId;
+        private long orderCount;
+        private long totalSpent;
+        private List<MemberOrderQueryDto> orders;
+        private String nextCursor;
+    }
+
     @Data
     static class CreateMemberRequest {
         @NotEmpty
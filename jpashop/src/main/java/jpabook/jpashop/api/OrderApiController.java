@@ -6,15 +6,27 @@ import jpabook.jpashop.domain.OrderItem;
 import jpabook.jpashop.domain.OrderStatus;
 import jpabook.jpashop.repository.OrderRepository;
 import jpabook.jpashop.repository.OrderSearch;
+import jpabook.jpashop.repository.order.query.OrderColumnarDto;
 import jpabook.jpashop.repository.order.query.OrderFlatDto;
 import jpabook.jpashop.repository.order.query.OrderItemQueryDto;
+import jpabook.jpashop.repository.order.query.OrderQueryAssembler;
 import jpabook.jpashop.repository.order.query.OrderQueryDto;
 import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import jpabook.jpashop.service.Aggregate;
+import jpabook.jpashop.service.OrderService;
+import jpabook.jpashop.web.AdmissionControlled;
+import jpabook.jpashop.web.VersionedResource;
+import lombok.AllArgsConstructor;
+import lombok.Data;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -32,6 +44,8 @@ public class OrderApiController {
 
     private final OrderRepository orderRepository;
     private final OrderQueryRepository orderQueryRepository;
+    private final OrderQueryAssembler orderQueryAssembler;
+    private final OrderService orderService;
 
     /**
      * V1 : 엔티티 직접 노출
@@ -117,10 +131,13 @@ public class OrderApiController {
 
     /**
      * V4 : JPA에서 DTO를 직접 조회
+     * 회원 이름/배송지/주문상품을 IN 쿼리로 묶고, 세 조회를 별도 커넥션에서 동시에 실행한다 (OrderQueryAssembler)
+     * 주문/회원 이름/상품 이름이 바뀌지 않았으면 ETag로 조회를 생략한다
      */
     @GetMapping("/api/v4/orders")
+    @VersionedResource({Aggregate.ORDER, Aggregate.MEMBER, Aggregate.ITEM})
     public List<OrderQueryDto> orderV4() {
-        return orderQueryRepository.findOrderQueryDtos();
+        return orderQueryAssembler.findOrderQueryDtos();
     }
 
     /**
@@ -152,6 +169,16 @@ public class OrderApiController {
                 .collect(toList());
     }
 
+    /**
+     * V6.1 : 플랫 데이터를 컬럼 단위로 전송
+     * V6의 중복 데이터(회원 이름, 주소, 상품 이름)를 한번만 보내고 인덱스로 참조한다
+     * Accept: application/cbor 와 같이 사용하면 전송량이 더 줄어든다
+     */
+    @GetMapping("/api/v6.1/orders")
+    public OrderColumnarDto orderV6_columnar() {
+        return OrderColumnarDto.from(orderQueryRepository.findAllByDtos_flat());
+    }
+
     /**
      * 권장 순서
      * 1. 엔티티 조회 방식으로 우선 접근
@@ -165,6 +192,29 @@ public class OrderApiController {
      * 3. DTO 조회 방식으로 해결이 안되면 NativeSQL or 스프링 JdbcTemplate
      */
 
+    /**
+     * 대량 주문 취소
+     */
+    @PostMapping("/api/orders/cancel")
+    @AdmissionControlled
+    public CancelOrdersResponse cancelOrders(@RequestBody @Valid CancelOrdersRequest request) {
+        int canceled = orderService.cancelAll(request.getOrderIds());
+        return new CancelOrdersResponse(request.getOrderIds().size(), canceled);
+    }
+
+    @Data
+    static class CancelOrdersRequest {
+        @NotEmpty
+        private List<Long> orderIds;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class CancelOrdersResponse {
+        private int requested;
+        private int canceled;
+    }
+
     @Getter
     static class OrderDto {
 
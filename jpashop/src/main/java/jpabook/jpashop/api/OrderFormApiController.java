@@ -0,0 +1,56 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.service.catalog.ItemSnapshot;
+import jpabook.jpashop.service.catalog.ItemSnapshot.ItemOption;
+import jpabook.jpashop.service.catalog.MemberSnapshot;
+import jpabook.jpashop.service.catalog.MemberSnapshot.MemberOption;
+import jpabook.jpashop.service.catalog.OrderFormCatalog;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * 주문 폼 자동완성용 API
+ * DB를 조회하지 않고 OrderFormCatalog의 스냅샷에서 이름 prefix로 검색한다
+ */
+@RestController
+@RequiredArgsConstructor
+public class OrderFormApiController {
+
+    private static final int MAX_LIMIT = 100;
+
+    private final OrderFormCatalog orderFormCatalog;
+
+    @GetMapping("/api/order-form/members")
+    public Result<List<MemberOption>> members(@RequestParam(value = "name", defaultValue = "") String name,
+                                              @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        MemberSnapshot snapshot = orderFormCatalog.getMembers();
+        List<MemberOption> members = snapshot.search(name, limitOf(limit));
+        return new Result<>(snapshot.getVersion(), members.size(), members);
+    }
+
+    @GetMapping("/api/order-form/items")
+    public Result<List<ItemOption>> items(@RequestParam(value = "name", defaultValue = "") String name,
+                                          @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        ItemSnapshot snapshot = orderFormCatalog.getItems();
+        List<ItemOption> items = snapshot.search(name, limitOf(limit));
+        return new Result<>(snapshot.getVersion(), items.size(), items);
+    }
+
+    private int limitOf(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class Result<T> {
+        private long version;
+        private int count;
+        private T data;
+    }
+}
@@ -0,0 +1,61 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.service.PriceHistory;
+import jpabook.jpashop.service.PriceHistory.PricePoint;
+import jpabook.jpashop.service.RevenueReportService;
+import jpabook.jpashop.service.RevenueReportService.RevenueReport;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class PriceApiController {
+
+    private final PriceHistory priceHistory;
+    private final RevenueReportService revenueReportService;
+
+    /**
+     * 상품 가격 이력, at 이 있으면 그 시점의 가격도 (이력이 없으면 null)
+     */
+    @GetMapping("/api/items/{itemId}/prices")
+    public PriceHistoryResponse prices(@PathVariable Long itemId,
+                                       @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime at) {
+        Integer priceAt = null;
+        if (at != null) {
+            int price = priceHistory.priceAt(itemId, at);
+            priceAt = price == PriceHistory.NO_PRICE ? null : price;
+        }
+        return new PriceHistoryResponse(itemId, at, priceAt, priceHistory.findHistory(itemId));
+    }
+
+    /**
+     * 기간 매출, 주문 가격 기준과 가격 이력(정가) 기준
+     * 예) /api/reports/revenue?from=2022-01-01T00:00:00&to=2022-02-01T00:00:00&asOf=2022-06-01T00:00:00
+     */
+    @GetMapping("/api/reports/revenue")
+    public RevenueReport revenue(@RequestParam @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime from,
+                                 @RequestParam @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime to,
+                                 @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime asOf,
+                                 @RequestParam(defaultValue = "false") boolean includeArchived) {
+        return revenueReportService.report(from, to, asOf, includeArchived);
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class PriceHistoryResponse {
+        private Long itemId;
+        private LocalDateTime at;
+        private Integer priceAt;
+        private List<PricePoint> history;
+    }
+}
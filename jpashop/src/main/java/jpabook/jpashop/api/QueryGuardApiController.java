@@ -0,0 +1,24 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.repository.QueryGuard;
+import jpabook.jpashop.repository.QueryGuard.StatsView;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequiredArgsConstructor
+public class QueryGuardApiController {
+
+    private final QueryGuard queryGuard;
+
+    /**
+     * 행 수를 제한하는 조회별 실행/청크/거부 횟수, 최대 행 수와 추정 힙 크기
+     */
+    @GetMapping("/api/query-guard/stats")
+    public Map<String, StatsView> stats() {
+        return queryGuard.getStats();
+    }
+}
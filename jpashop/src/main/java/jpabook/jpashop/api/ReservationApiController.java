@@ -0,0 +1,106 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.domain.Reservation;
+import jpabook.jpashop.domain.ReservationStatus;
+import jpabook.jpashop.exception.NotFoundException;
+import jpabook.jpashop.service.OrderService;
+import jpabook.jpashop.service.ReservationService;
+import jpabook.jpashop.web.AdmissionControlled;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+
+import javax.validation.Valid;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+@RestController
+@RequiredArgsConstructor
+public class ReservationApiController {
+
+    private final ReservationService reservationService;
+    private final OrderService orderService;
+
+    /**
+     * 재고 예약, ttlSeconds 가 없으면 jpashop.reservation.ttl
+     */
+    @PostMapping("/api/reservations")
+    @AdmissionControlled
+    public ReservationDto reserve(@RequestBody @Valid ReserveRequest request) {
+        Duration ttl = request.getTtlSeconds() == null ? null : Duration.ofSeconds(request.getTtlSeconds());
+        Reservation reservation = reservationService.reserve(
+                request.getMemberId(), request.getItemId(), request.getCount(), ttl);
+        return new ReservationDto(reservation);
+    }
+
+    @GetMapping("/api/reservations/{id}")
+    public ReservationDto reservation(@PathVariable Long id) {
+        Reservation reservation = reservationService.findOne(id);
+        if (reservation == null) {
+            throw new NotFoundException("예약이 없습니다. reservationId=" + id);
+        }
+        return new ReservationDto(reservation);
+    }
+
+    /**
+     * 예약 취소, 재고를 돌려놓는다. 예약이 없거나 다른 회원의 예약이면 404
+     */
+    @DeleteMapping("/api/reservations/{id}")
+    @AdmissionControlled
+    public void release(@PathVariable Long id, @RequestParam Long memberId) {
+        reservationService.release(id, memberId);
+    }
+
+    /**
+     * 예약을 주문으로 확정, 예약이 없거나 다른 회원의 예약이면 404
+     */
+    @PostMapping("/api/reservations/{id}/order")
+    @AdmissionControlled
+    public OrderResponse order(@PathVariable Long id, @RequestParam Long memberId) {
+        return new OrderResponse(orderService.orderReservation(id, memberId));
+    }
+
+    @Data
+    static class ReserveRequest {
+        @NotNull
+        private Long memberId;
+        @NotNull
+        private Long itemId;
+        @Min(1)
+        private int count;
+        @Min(1)
+        private Long ttlSeconds;
+    }
+
+    @Data
+    static class ReservationDto {
+        private Long reservationId;
+        private Long memberId;
+        private Long itemId;
+        private int price;
+        private int count;
+        private ReservationStatus status;
+        private LocalDateTime expiresAt;
+        private Long orderId;
+
+        ReservationDto(Reservation reservation) {
+            reservationId = reservation.getId();
+            memberId = reservation.getMemberId();
+            itemId = reservation.getItemId();
+            price = reservation.getPrice();
+            count = reservation.getCount();
+            status = reservation.getStatus();
+            expiresAt = reservation.getExpiresAt();
+            orderId = reservation.getOrderId();
+        }
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class OrderResponse {
+        private Long orderId;
+    }
+}
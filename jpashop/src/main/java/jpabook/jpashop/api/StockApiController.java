@@ -0,0 +1,60 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.domain.StockSnapshot;
+import jpabook.jpashop.service.LowStockAlerts;
+import jpabook.jpashop.service.LowStockEvent;
+import jpabook.jpashop.service.StockSnapshotService;
+import jpabook.jpashop.service.StockSnapshotService.StockVerification;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class StockApiController {
+
+    private final StockSnapshotService stockSnapshotService;
+    private final LowStockAlerts lowStockAlerts;
+
+    /**
+     * 스냅샷 + 재고 원장으로 재구성한 재고와 item 테이블 비교
+     */
+    @GetMapping("/api/stock/verification")
+    public StockVerification verify() {
+        return stockSnapshotService.verify();
+    }
+
+    /**
+     * 스케줄(jpashop.stock.snapshot-cron)을 기다리지 않고 스냅샷 생성
+     */
+    @PostMapping("/api/stock/snapshots")
+    public SnapshotResponse snapshot() {
+        StockSnapshot snapshot = stockSnapshotService.snapshot();
+        if (snapshot == null) {
+            return new SnapshotResponse(null, null, null);
+        }
+        return new SnapshotResponse(snapshot.getId(), snapshot.getLedgerPosition(), snapshot.getCreatedAt());
+    }
+
+    /**
+     * 최근 재고 부족 알림, 최신순
+     */
+    @GetMapping("/api/stock/low-stock-alerts")
+    public List<LowStockEvent> lowStockAlerts() {
+        return lowStockAlerts.getRecent();
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class SnapshotResponse {
+        private Long snapshotId; // 새로 반영할 원장이 없으면 null
+        private Long ledgerPosition;
+        private LocalDateTime createdAt;
+    }
+}
@@ -0,0 +1,44 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.repository.StreamingQueryRepository;
+import jpabook.jpashop.repository.order.simplequery.SimpleOrderQueryDto;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+/**
+ * 스트리밍 조회 API (NDJSON, Server-Sent Events)
+ * Flux를 반환하면 비동기 요청으로 처리되어 Tomcat 스레드는 바로 반납되고,
+ * 클라이언트가 한 건을 받아갈 때마다 다음 row를 읽는다(backpressure)
+ * 느린 클라이언트가 큰 목록을 받아도 요청 스레드를 붙잡지 않는다
+ */
+@RestController
+@RequiredArgsConstructor
+public class StreamApiController {
+
+    private final StreamingQueryRepository streamingQueryRepository;
+
+    @GetMapping(value = "/api/stream/orders",
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Flux<SimpleOrderQueryDto> streamOrders() {
+        return streamingQueryRepository.streamOrderDtos();
+    }
+
+    @GetMapping(value = "/api/stream/members",
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Flux<MemberDto> streamMembers() {
+        return streamingQueryRepository.streamMembers()
+                .map(row -> new MemberDto((Long) row[0], (String) row[1]));
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class MemberDto {
+        private Long id;
+        private String name;
+    }
+}
@@ -0,0 +1,36 @@
+package jpabook.jpashop.config;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * jpashop.execution.db-permits 가 0보다 크면 DataSource 를 AdmissionLimitedDataSource 로 감싼다
+ * 커넥션 풀 크기(spring.datasource.hikari.maximum-pool-size)와 별개로 DB 동시 접근 수와 대기 시간을 정한다
+ */
+@Configuration
+@ConditionalOnExpression("${jpashop.execution.db-permits:0} > 0")
+public class DataSourceAdmissionConfig {
+
+    @Bean
+    public static BeanPostProcessor admissionLimitedDataSourcePostProcessor(Environment env) {
+        int permits = env.getProperty("jpashop.execution.db-permits", Integer.class, 0);
+        long timeoutMillis = env.getProperty("jpashop.execution.db-permit-timeout", Duration.class,
+                Duration.ofSeconds(5)).toMillis();
+
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource && !(bean instanceof AdmissionLimitedDataSource)) {
+                    return new AdmissionLimitedDataSource((DataSource) bean, permits, timeoutMillis);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,65 @@
+package jpabook.jpashop.config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import jpabook.jpashop.domain.id.ShopIdGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+
+/**
+ * jpashop.id.* 설정을 Hibernate 설정으로 넘겨서 ShopIdGenerator 가 읽을 수 있게 한다
+ * snowflake id 는 JS Number 정밀도(2^53)를 넘으므로 JSON/CBOR 응답의 long 값을 문자열로 보낸다
+ */
+@Configuration
+public class IdGenerationConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer idGenerationProperties(
+            @Value("${jpashop.id.strategy:pooled-lo}") String strategy,
+            @Value("${jpashop.id.increment-size:50}") int incrementSize,
+            @Value("${jpashop.id.node-id:0}") int nodeId) {
+        return properties -> {
+            properties.put(ShopIdGenerator.STRATEGY_SETTING, strategy);
+            properties.put(ShopIdGenerator.INCREMENT_SIZE_SETTING, incrementSize);
+            properties.put(ShopIdGenerator.NODE_ID_SETTING, nodeId);
+        };
+    }
+
+    /**
+     * 모든 Long/long/long[] 을 문자열로 쓴다 (id 만 골라내지 않고 타입 단위로 일관되게)
+     * long[] 은 Jackson 이 원소를 Long 시리얼라이저로 쓰지 않으므로 따로 등록한다 (OrderColumnarDto.OrderColumns.orderId)
+     * 요청 본문의 "123" 같은 문자열 숫자는 Jackson 이 그대로 Long 으로 읽는다
+     */
+    @Bean
+    @ConditionalOnProperty(name = "jpashop.id.strategy", havingValue = "snowflake")
+    public Jackson2ObjectMapperBuilderCustomizer longAsStringCustomizer() {
+        return builder -> builder
+                .serializerByType(Long.class, ToStringSerializer.instance)
+                .serializerByType(Long.TYPE, ToStringSerializer.instance)
+                .serializerByType(long[].class, new LongArrayAsStringsSerializer());
+    }
+
+    static class LongArrayAsStringsSerializer extends StdSerializer<long[]> {
+
+        LongArrayAsStringsSerializer() {
+            super(long[].class);
+        }
+
+        @Override
+        public void serialize(long[] values, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartArray(values, values.length);
+            for (long value : values) {
+                gen.writeString(Long.toString(value));
+            }
+            gen.writeEndArray();
+        }
+    }
+}
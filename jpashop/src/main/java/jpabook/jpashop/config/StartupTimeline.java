@@ -0,0 +1,78 @@
+package jpabook.jpashop.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationEnvironmentPreparedEvent;
+import org.springframework.boot.context.event.ApplicationPreparedEvent;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.boot.context.event.ApplicationStartingEvent;
+import org.springframework.boot.web.context.WebServerInitializedEvent;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 기동 단계별 소요 시간 기록
+ * 컨텍스트가 만들어지기 전 이벤트부터 받아야 하므로 빈이 아니라 META-INF/spring.factories 로 등록한다
+ *
+ * jvm         : JVM 시작 ~ SpringApplication.run
+ * environment : 설정 파일/프로파일 로딩
+ * prepare     : 컨텍스트 생성, 빈 정의 로딩 전까지
+ * refresh     : 빈 생성 (Hibernate 초기화 포함) ~ 웹 서버 시작
+ * after-refresh : 웹 서버 시작 이후 남은 refresh 처리
+ * runners     : ApplicationRunner / CommandLineRunner
+ *
+ * jpashop.startup.exit-on-ready=true 이면 기동 직후 종료한다 (AppCDS 아카이브 생성용, build.gradle cdsArchive)
+ */
+@Slf4j
+public class StartupTimeline implements ApplicationListener<ApplicationEvent> {
+
+    private final Map<String, Long> marks = new LinkedHashMap<>();
+
+    @Override
+    public void onApplicationEvent(ApplicationEvent event) {
+        if (event instanceof ApplicationStartingEvent) {
+            marks.put("jvm", ManagementFactory.getRuntimeMXBean().getStartTime());
+            marks.put("environment", event.getTimestamp());
+        } else if (event instanceof ApplicationEnvironmentPreparedEvent) {
+            marks.put("prepare", event.getTimestamp());
+        } else if (event instanceof ApplicationPreparedEvent) {
+            marks.put("refresh", event.getTimestamp());
+        } else if (event instanceof WebServerInitializedEvent) {
+            marks.put("after-refresh", event.getTimestamp());
+        } else if (event instanceof ApplicationStartedEvent) {
+            marks.put("runners", event.getTimestamp());
+        } else if (event instanceof ApplicationReadyEvent) {
+            marks.put("ready", event.getTimestamp());
+            log.info("startup timeline: {}", timeline());
+            exitIfTraining(((ApplicationReadyEvent) event).getApplicationContext());
+        }
+    }
+
+    private String timeline() {
+        StringBuilder sb = new StringBuilder();
+        String previous = null;
+        long previousAt = 0;
+        for (Map.Entry<String, Long> mark : marks.entrySet()) {
+            if (previous != null) {
+                sb.append(previous).append('=').append(mark.getValue() - previousAt).append("ms, ");
+            }
+            previous = mark.getKey();
+            previousAt = mark.getValue();
+        }
+        long total = marks.get("ready") - marks.get("jvm");
+        return sb.append("total=").append(total).append("ms").toString();
+    }
+
+    private void exitIfTraining(ConfigurableApplicationContext context) {
+        if (context.getEnvironment().getProperty("jpashop.startup.exit-on-ready", Boolean.class, false)) {
+            log.info("jpashop.startup.exit-on-ready=true, exiting");
+            System.exit(SpringApplication.exit(context));
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package jpabook.jpashop.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import javax.annotation.PreDestroy;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * jpashop.execution.mode=virtual
+ * Tomcat 요청 처리와 @Async 작업을 가상 스레드(Java 21+)에서 실행한다
+ * JDBC 대기 중에도 플랫폼 스레드를 점유하지 않으므로 Tomcat 스레드 풀이 포화되지 않는다
+ * 대신 DB 동시 접근은 커넥션 풀과 DataSourceAdmissionConfig 로 제한한다
+ *
+ * 빌드는 Java 17 기준이라 가상 스레드 API는 리플렉션으로 가져온다
+ */
+@Configuration
+@ConditionalOnProperty(name = "jpashop.execution.mode", havingValue = "virtual")
+public class VirtualThreadConfig {
+
+    private final ExecutorService executor = newVirtualThreadPerTaskExecutor();
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(executor);
+    }
+
+    @Bean(name = {"applicationTaskExecutor", "taskExecutor"})
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        return new TaskExecutorAdapter(executor);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("jpashop.execution.mode=virtual 은 Java 21 이상에서 실행해야 합니다. 현재 "
+                    + System.getProperty("java.version"), e);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("가상 스레드 Executor를 생성할 수 없습니다", e);
+        }
+    }
+}
@@ -11,6 +11,7 @@ public class BookForm {
     private String name;
     private int price;
     private int stockQuantity;
+    private int lowStockThreshold;
 
     private String author;
     private String isbn;
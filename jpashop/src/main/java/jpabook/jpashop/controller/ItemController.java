@@ -2,7 +2,9 @@ package jpabook.jpashop.controller;
 
 import jpabook.jpashop.domain.item.Book;
 import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.service.Aggregate;
 import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.web.VersionedResource;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -31,6 +33,7 @@ public class ItemController {
         book.setName(bookForm.getName());
         book.setPrice(bookForm.getPrice());
         book.setStockQuantity(bookForm.getStockQuantity());
+        book.setLowStockThreshold(bookForm.getLowStockThreshold());
         book.setAuthor(bookForm.getAuthor());
         book.setIsbn(bookForm.getIsbn());
 
@@ -38,7 +41,9 @@ public class ItemController {
         return "redirect:/items";
     }
 
+    // 재고는 주문/취소로도 바뀌기 때문에 주문 버전도 포함한다
     @GetMapping("/items")
+    @VersionedResource({Aggregate.ITEM, Aggregate.ORDER})
     public String list(Model model) {
         List<Item> items = itemService.findItems();
         model.addAttribute("items", items);
@@ -48,14 +53,16 @@ public class ItemController {
 
     @GetMapping("/items/{itemId}/edit")
     public String updateItemForm(@PathVariable("itemId") Long id, Model model) {
-        Book item = (Book) itemService.findOne(id);
+        Book item = itemService.findOne(Book.class, id);
 
         BookForm bookForm = new BookForm();
         bookForm.setId(item.getId());
+        bookForm.setName(item.getName());
         bookForm.setPrice(item.getPrice());
         bookForm.setAuthor(item.getAuthor());
         bookForm.setIsbn(item.getIsbn());
         bookForm.setStockQuantity(item.getStockQuantity());
+        bookForm.setLowStockThreshold(item.getLowStockThreshold());
 
         model.addAttribute("form", bookForm);
         return "items/updateItemForm";
@@ -70,6 +77,7 @@ public class ItemController {
         book.setPrice(form.getPrice());
         book.setName(form.getName());
         book.setStockQuantity(form.getStockQuantity());
+        book.setLowStockThreshold(form.getLowStockThreshold());
         book.setAuthor(form.getAuthor());
 
 //        itemService.saveItem(book); // merge 사용 방법
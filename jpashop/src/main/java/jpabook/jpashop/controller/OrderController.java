@@ -1,44 +1,45 @@
 package jpabook.jpashop.controller;
 
-import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.ArchivedOrder;
 import jpabook.jpashop.domain.Order;
-import jpabook.jpashop.domain.item.Item;
 import jpabook.jpashop.repository.OrderSearch;
-import jpabook.jpashop.service.ItemService;
-import jpabook.jpashop.service.MemberService;
 import jpabook.jpashop.service.OrderService;
+import jpabook.jpashop.web.AdmissionControlled;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.UUID;
 
 @Controller
 @RequiredArgsConstructor
 public class OrderController {
 
     private final OrderService orderService;
-    private final ItemService itemService;
-    private final MemberService memberService;
 
+    /**
+     * 회원, 상품 목록은 폼에서 /api/order-form/** 으로 검색해서 채운다
+     * 카탈로그가 커져도 폼 렌더링 비용이 늘어나지 않는다
+     */
     @GetMapping("/order")
     public String createForm(Model model) {
-
-        List<Member> members = memberService.findAllMembers();
-        List<Item> items = itemService.findItems();
-
-        model.addAttribute("members", members);
-        model.addAttribute("items", items);
-
+        model.addAttribute("idempotencyKey", UUID.randomUUID().toString()); // 폼을 다시 제출해도 주문은 한번
         return "order/orderForm";
     }
 
+    /**
+     * 멱등키는 Idempotency-Key 헤더, 없으면 폼의 idempotencyKey 값을 쓴다
+     */
     @PostMapping("/order")
+    @AdmissionControlled
     public String createOrder(@RequestParam("memberId") Long memberId,
                               @RequestParam("itemId") Long itemId,
-                              @RequestParam("count") int count) {
-        orderService.order(memberId, itemId, count);
+                              @RequestParam("count") int count,
+                              @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+                              @RequestParam(value = "idempotencyKey", required = false) String formIdempotencyKey) {
+        orderService.order(memberId, itemId, count, idempotencyKey != null ? idempotencyKey : formIdempotencyKey);
         return "redirect:/orders/";
     }
 
@@ -46,12 +47,15 @@ public class OrderController {
     public String orderList(@ModelAttribute("orderSearch")OrderSearch orderSearch,
                             Model model) {
         List<Order> orders = orderService.findOrders(orderSearch);
+        List<ArchivedOrder> archivedOrders = orderService.findArchivedOrders(orderSearch);
         model.addAttribute("orders", orders);
+        model.addAttribute("archivedOrders", archivedOrders);
 
         return "order/orderList";
     }
 
     @PostMapping("/orders/{itemId}/cancel")
+    @AdmissionControlled
     public String cancelOrder(@PathVariable("itemId") Long itemId) {
         orderService.cancel(itemId);
         return "redirect:/orders";
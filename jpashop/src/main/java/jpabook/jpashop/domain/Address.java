@@ -1,16 +1,85 @@
 package jpabook.jpashop.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import lombok.*;
+import org.hibernate.annotations.Immutable;
 
-import javax.persistence.Embeddable;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
 
-@Embeddable
+/**
+ * 주소 (값 객체, 변경 불가)
+ * 회원과 배송마다 city/street/zipcode 를 복사해 두지 않고 address 테이블에 한번만 저장하고 address_id 로 참조한다
+ * id 는 내용의 해시라서 같은 주소는 같은 행이 된다 (저장은 AddressRepository, 해시 충돌이면 다음 id)
+ *
+ * 조회용 DTO 는 intern() 으로 같은 내용의 인스턴스를 나눠 쓴다
+ */
+@Entity
+@Immutable
 @Getter
-@AllArgsConstructor
+@EqualsAndHashCode(exclude = "id")
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"}) // 지연 로딩 프록시
 public class Address {
 
+    // JVM 안의 약한 참조 intern 캐시, 어떤 DTO 도 쓰지 않는 주소는 GC 가 치운다
+    private static final Map<Address, WeakReference<Address>> INTERNED = new WeakHashMap<>();
+
+    @Id
+    @Column(name = "address_id")
+    @JsonIgnore
+    private Long id;
+
     private String city;
     private String street;
     private String zipcode;
+
+    public Address(String city, String street, String zipcode) {
+        this.city = city;
+        this.street = street;
+        this.zipcode = zipcode;
+        this.id = contentHash();
+    }
+
+    /**
+     * 같은 내용이면 같은 인스턴스, 모두 null 이면 null (주소 없는 배송의 left join)
+     */
+    public static Address intern(String city, String street, String zipcode) {
+        if (city == null && street == null && zipcode == null) {
+            return null;
+        }
+        Address address = new Address(city, street, zipcode);
+        synchronized (INTERNED) {
+            WeakReference<Address> ref = INTERNED.get(address);
+            Address interned = ref == null ? null : ref.get();
+            if (interned != null) {
+                return interned;
+            }
+            INTERNED.put(address, new WeakReference<>(address));
+            return address;
+        }
+    }
+
+    /**
+     * city, street, zipcode 의 64bit 해시 (FNV-1a)
+     */
+    public long contentHash() {
+        long hash = 0xcbf29ce484222325L;
+        for (String part : new String[]{getCity(), getStreet(), getZipcode()}) {
+            if (part == null) {
+                hash = (hash ^ 0xff) * 0x100000001b3L;
+                continue;
+            }
+            for (int i = 0; i < part.length(); i++) {
+                hash = (hash ^ part.charAt(i)) * 0x100000001b3L;
+            }
+            hash = (hash ^ 0xfe) * 0x100000001b3L; // 구분자, ("ab", "c") 와 ("a", "bc") 를 다르게
+        }
+        return hash;
+    }
 }
@@ -0,0 +1,60 @@
+package jpabook.jpashop.domain;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 배송이 완료되었거나 취소된 오래된 주문
+ * orders 테이블의 작업 집합을 작게 유지하기 위해 OrderArchiveService가 옮겨온다
+ * 조회 전용이며, 배송 정보는 주문 row에 합쳐서 보관한다 (주소는 배송과 같은 address 행을 참조)
+ */
+@Entity
+@Table(name = "orders_archive", indexes = {
+        @Index(name = "idx_orders_archive_member", columnList = "member_id"),
+        @Index(name = "idx_orders_archive_order_date", columnList = "orderDate")
+})
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class ArchivedOrder {
+
+    @Id
+    @Column(name = "order_id")
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "member_id")
+    private Member member;
+
+    @OneToMany(mappedBy = "order")
+    private List<ArchivedOrderItem> orderItems = new ArrayList<>();
+
+    private LocalDateTime orderDate;
+
+    @Enumerated(EnumType.STRING)
+    private OrderStatus status;
+
+    @Enumerated(EnumType.STRING)
+    private DeliveryStatus deliveryStatus;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "address_id")
+    private Address address;
+
+    private LocalDateTime archivedAt;
+
+    // 조회 로직
+    public int getTotalPrice() {
+        int totalPrice = 0;
+        for (ArchivedOrderItem orderItem : orderItems) {
+            totalPrice += orderItem.getTotalPrice();
+        }
+
+        return totalPrice;
+    }
+}
@@ -1,5 +1,6 @@
 package jpabook.jpashop.domain;
 
+import jpabook.jpashop.domain.id.ShopIdGenerator;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -11,7 +12,7 @@ import java.util.List;
 @Getter
 public class Category {
 
-    @Id @GeneratedValue
+    @Id @GeneratedValue(generator = ShopIdGenerator.NAME)
     @Column(name = "category_id")
     private Long id;
 
@@ -1,5 +1,6 @@
 package jpabook.jpashop.domain;
 
+import jpabook.jpashop.domain.id.ShopIdGenerator;
 import jpabook.jpashop.domain.item.Item;
 
 import javax.persistence.*;
@@ -7,7 +8,7 @@ import javax.persistence.*;
 @Entity
 public class CategoryItem {
 
-    @Id @GeneratedValue
+    @Id @GeneratedValue(generator = ShopIdGenerator.NAME)
     @Column(name = "category_item_id")
     private Long id;
 
@@ -1,7 +1,11 @@
 package jpabook.jpashop.domain;
 
+import jpabook.jpashop.domain.id.ShopIdGenerator;
+import jpabook.jpashop.exception.ConflictException;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.LazyToOne;
+import org.hibernate.annotations.LazyToOneOption;
 
 import javax.persistence.*;
 
@@ -9,19 +13,31 @@ import javax.persistence.*;
 @Getter
 public class Delivery {
 
-    @Id @GeneratedValue
+    @Id @GeneratedValue(generator = ShopIdGenerator.NAME)
     @Column(name = "delivery_id")
     private Long id;
 
+    // 연관관계 주인이 아닌 쪽의 OneToOne 은 프록시를 만들 수 없어 항상 즉시 조회된다
+    // bytecode enhancement 의 NO_PROXY 로 실제로 접근할 때까지 조회를 미룬다
     @OneToOne(fetch = FetchType.LAZY, mappedBy = "delivery")
+    @LazyToOne(LazyToOneOption.NO_PROXY)
     @Setter
     private Order order;
 
-    @Embedded
+    // 주소는 address 테이블에 한번만 저장하고 참조한다 (AddressRepository.save 로 저장된 주소)
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "address_id")
     @Setter
     private Address address;
 
     @Enumerated(EnumType.STRING)
-    private DeliveryStatus status;
-
+    private DeliveryStatus status = DeliveryStatus.READY;
+
+    // 비지니스 로직
+    public void changeStatus(DeliveryStatus next) {
+        if (!status.canChangeTo(next)) {
+            throw new ConflictException("배송 상태를 " + status + "에서 " + next + "(으)로 변경할 수 없습니다");
+        }
+        status = next;
+    }
 }
@@ -1,5 +1,28 @@
 package jpabook.jpashop.domain;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 public enum DeliveryStatus {
-    READY, COMP
+    READY, COMP;
+
+    /**
+     * 허용되는 상태 전이 : READY -> COMP
+     */
+    public boolean canChangeTo(DeliveryStatus next) {
+        return this == READY && next == COMP;
+    }
+
+    /**
+     * next 상태로 전이할 수 있는 이전 상태들
+     */
+    public static Set<DeliveryStatus> changeableTo(DeliveryStatus next) {
+        Set<DeliveryStatus> result = EnumSet.noneOf(DeliveryStatus.class);
+        for (DeliveryStatus status : values()) {
+            if (status.canChangeTo(next)) {
+                result.add(status);
+            }
+        }
+        return result;
+    }
 }
@@ -0,0 +1,52 @@
+package jpabook.jpashop.domain;
+
+import jpabook.jpashop.exception.ConflictException;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 주문 요청의 멱등키 (Idempotency-Key)
+ * 주문과 같은 트랜잭션에서 저장되고, 키가 PK 라서 같은 키로 두번째 주문이 커밋될 수 없다
+ * 주문은 아카이브로 옮겨질 수 있으므로 연관관계 없이 id 만 보관한다
+ */
+@Entity
+@Table(name = "idempotency_key", indexes = @Index(name = "idx_idempotency_key_created_at", columnList = "createdAt"))
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class IdempotencyKey {
+
+    public static final int MAX_LENGTH = 64;
+
+    @Id
+    @Column(name = "idempotency_key", length = MAX_LENGTH)
+    private String key;
+
+    private Long memberId;
+    private Long itemId;
+    private int count;
+    private Long orderId;
+    private LocalDateTime createdAt;
+
+    public IdempotencyKey(String key, Long memberId, Long itemId, int count, Long orderId) {
+        this.key = key;
+        this.memberId = memberId;
+        this.itemId = itemId;
+        this.count = count;
+        this.orderId = orderId;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    /**
+     * 같은 키로 다시 들어온 요청이 처음 요청과 같을 때만 처음 주문 id 를 돌려준다, 다르면 ConflictException
+     */
+    public Long replay(Long memberId, Long itemId, int count) {
+        if (!this.memberId.equals(memberId) || !this.itemId.equals(itemId) || this.count != count) {
+            throw new ConflictException("다른 주문 요청에 사용된 멱등키입니다. key=" + key);
+        }
+        return orderId;
+    }
+}
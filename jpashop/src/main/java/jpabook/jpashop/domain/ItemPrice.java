@@ -0,0 +1,37 @@
+package jpabook.jpashop.domain;
+
+import jpabook.jpashop.domain.id.ShopIdGenerator;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 상품 가격 이력 (추가만 한다)
+ * effectiveFrom 부터 다음 이력의 effectiveFrom 전까지 이 가격이다
+ * 조회는 메모리 인덱스(PriceHistory)로 하고, 테이블은 기동 시 인덱스를 만들 때만 읽는다
+ */
+@Entity
+@Table(name = "item_price", indexes = @Index(name = "idx_item_price_item", columnList = "item_id, effectiveFrom"))
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class ItemPrice {
+
+    @Id @GeneratedValue(generator = ShopIdGenerator.NAME)
+    @Column(name = "item_price_id")
+    private Long id;
+
+    @Column(name = "item_id", nullable = false)
+    private Long itemId;
+
+    private int price;
+    private LocalDateTime effectiveFrom;
+
+    public ItemPrice(Long itemId, int price, LocalDateTime effectiveFrom) {
+        this.itemId = itemId;
+        this.price = price;
+        this.effectiveFrom = effectiveFrom;
+    }
+}
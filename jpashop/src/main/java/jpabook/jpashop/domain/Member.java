@@ -1,5 +1,7 @@
 package jpabook.jpashop.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jpabook.jpashop.domain.id.ShopIdGenerator;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -12,7 +14,7 @@ import java.util.List;
 @Getter
 public class Member {
 
-    @Id @GeneratedValue
+    @Id @GeneratedValue(generator = ShopIdGenerator.NAME)
     @Column(name = "member_id")
     private Long id;
 
@@ -20,12 +22,22 @@ public class Member {
     @NotEmpty
     private String name;
 
-    @Embedded
+    // 주소는 address 테이블에 한번만 저장하고 참조한다 (AddressRepository.save 로 저장된 주소)
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "address_id")
     @Setter
     private Address address;
 
+    // 주문 내역 전체를 읽게 되므로 순회하지 않는다, 조회는 /api/members/{id}/orders (keyset 페이징)
+    // 연관관계 주인이 아니라서 add 만 하는 경우에는 초기화되지 않는다
+    @JsonIgnore
     @OneToMany(mappedBy = "member")
     private List<Order> orders = new ArrayList<>();
 
-
+    // 주문/취소 시 MemberOrderStatsRepository 가 원자적으로 증감한다 (취소되지 않은 주문 기준)
+    // 엔티티의 값은 읽은 시점 이후의 증감을 모르므로 insert/update(dirty checking)에서 빼고, 최신 값은 MemberOrderStatsRepository.find 로 읽는다
+    @Column(insertable = false, updatable = false, columnDefinition = "bigint default 0 not null")
+    private long orderCount;
+    @Column(insertable = false, updatable = false, columnDefinition = "bigint default 0 not null")
+    private long totalSpent;
 }
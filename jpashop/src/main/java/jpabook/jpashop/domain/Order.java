@@ -1,5 +1,6 @@
 package jpabook.jpashop.domain;
 
+import jpabook.jpashop.domain.id.ShopIdGenerator;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -11,13 +12,16 @@ import java.util.Arrays;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        // 회원 주문 내역 keyset 페이징 (member_id, orderDate desc, order_id desc)
+        @Index(name = "idx_orders_member_date", columnList = "member_id, orderDate, order_id")
+})
 @Getter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 public class Order {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = ShopIdGenerator.NAME)
     @Column(name = "order_id")
     private Long id;
 
@@ -38,9 +42,11 @@ public class Order {
     private OrderStatus status;
 
     public Order(Member member, List<OrderItem> orderItems, Delivery delivery) {
-        this.member = member;
-        this.orderItems = orderItems;
-        this.delivery = delivery;
+        setMember(member);
+        for (OrderItem orderItem : orderItems) {
+            addOrderItem(orderItem);
+        }
+        setDelivery(delivery);
 
         this.status = OrderStatus.ORDER;
         this.orderDate = LocalDateTime.now();
@@ -75,11 +81,12 @@ public class Order {
         if(delivery.getStatus() == DeliveryStatus.COMP) {
             throw new IllegalStateException("이미 배송이 완료되었습니다");
         }
+        if(status == OrderStatus.CANCEL) {
+            throw new IllegalStateException("이미 취소된 주문입니다");
+        }
 
+        // 재고는 상품 엔티티를 읽고 고쳐 쓰지 않고 OrderService 가 update 로 돌려놓는다 (동시 주문의 차감을 덮어쓰지 않도록)
         status = OrderStatus.CANCEL;
-        for (OrderItem orderItem : orderItems) {
-            orderItem.cancel();
-        }
     }
 
     // 조회 로직
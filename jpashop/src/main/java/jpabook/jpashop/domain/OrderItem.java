@@ -1,5 +1,6 @@
 package jpabook.jpashop.domain;
 
+import jpabook.jpashop.domain.id.ShopIdGenerator;
 import jpabook.jpashop.domain.item.Item;
 import lombok.AccessLevel;
 import lombok.Getter;
@@ -13,7 +14,7 @@ import javax.persistence.*;
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 public class OrderItem {
 
-    @Id @GeneratedValue
+    @Id @GeneratedValue(generator = ShopIdGenerator.NAME)
     @Column(name = "order_item_id")
     private Long id;
 
@@ -30,11 +31,17 @@ public class OrderItem {
     private int count;
 
     public OrderItem(Item item, int orderPrice, int count) {
+        this(item, orderPrice, count, true);
+    }
+
+    private OrderItem(Item item, int orderPrice, int count, boolean removeStock) {
         this.item = item;
         this.orderPrice = orderPrice;
         this.count = count;
 
-        item.removeStock(count);
+        if (removeStock) {
+            item.removeStock(count);
+        }
     }
 
     // 생성 메서드
@@ -42,11 +49,14 @@ public class OrderItem {
         return new OrderItem(item, orderPrice, count);
     }
 
-    // 비지니스 로직
-    public void cancel() {
-        getItem().addStock(getCount());
+    /**
+     * 재고를 이미 차감한 경우 (ItemRepository.removeStock), item 은 초기화되지 않은 프록시여도 된다
+     */
+    public static OrderItem createOrderItemWithoutStock(Item item, int orderPrice, int count) {
+        return new OrderItem(item, orderPrice, count, false);
     }
 
+    // 비지니스 로직
     public int getTotalPrice() {
         return getOrderPrice() * getCount();
     }
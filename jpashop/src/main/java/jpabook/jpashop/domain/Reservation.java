@@ -0,0 +1,75 @@
+package jpabook.jpashop.domain;
+
+import jpabook.jpashop.domain.id.ShopIdGenerator;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 재고 예약 (장바구니/결제 중)
+ * 예약하는 순간 재고를 차감하고, expiresAt 까지 주문으로 확정되지 않으면 만료되어 재고가 돌아간다
+ * 가격은 예약 시점의 가격으로 주문한다
+ * 주문과 같이 회원/상품은 연관관계 없이 id 만 보관한다 (IdempotencyKey)
+ */
+@Entity
+@Table(name = "reservation", indexes = @Index(name = "idx_reservation_status_expires_at", columnList = "status, expiresAt"))
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class Reservation {
+
+    @Id @GeneratedValue(generator = ShopIdGenerator.NAME)
+    @Column(name = "reservation_id")
+    private Long id;
+
+    private Long memberId;
+    private Long itemId;
+    private int price;
+    private int count;
+
+    @Enumerated(EnumType.STRING)
+    private ReservationStatus status;
+
+    private LocalDateTime expiresAt;
+    private LocalDateTime createdAt;
+    private Long orderId;
+
+    public Reservation(Long memberId, Long itemId, int price, int count, LocalDateTime expiresAt) {
+        this.memberId = memberId;
+        this.itemId = itemId;
+        this.price = price;
+        this.count = count;
+        this.status = ReservationStatus.RESERVED;
+        this.expiresAt = expiresAt;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public boolean isExpired(LocalDateTime now) {
+        return !now.isBefore(expiresAt);
+    }
+
+    // 비지니스 로직
+
+    public void confirm(Long orderId) {
+        if (status != ReservationStatus.RESERVED) {
+            throw new IllegalStateException("이미 처리된 예약입니다. reservationId=" + id + ", status=" + status);
+        }
+        if (isExpired(LocalDateTime.now())) {
+            throw new IllegalStateException("예약이 만료되었습니다. reservationId=" + id);
+        }
+        this.status = ReservationStatus.CONFIRMED;
+        this.orderId = orderId;
+    }
+
+    /**
+     * 예약 취소(RELEASED) 또는 만료(EXPIRED), 재고 복구는 호출하는 쪽에서 한다
+     */
+    public void release(ReservationStatus status) {
+        if (this.status != ReservationStatus.RESERVED) {
+            throw new IllegalStateException("이미 처리된 예약입니다. reservationId=" + id + ", status=" + this.status);
+        }
+        this.status = status;
+    }
+}
@@ -0,0 +1,8 @@
+package jpabook.jpashop.domain;
+
+public enum StockChangeReason {
+    RECEIVE, // 상품 등록 시 초기 재고
+    ORDER, CANCEL,
+    RESERVE, RELEASE, // 재고 예약, 예약 취소/만료 (예약을 주문으로 확정할 때는 재고가 바뀌지 않는다)
+    ADJUST // 상품 수정 화면에서 재고를 직접 바꾼 경우
+}
@@ -0,0 +1,46 @@
+package jpabook.jpashop.domain;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 재고 변경 원장 (추가만 한다)
+ * 쓰기는 StockLedger 가 트랜잭션 단위로 모아서 JDBC batch 로 하고, 엔티티는 테이블 정의와 조회에만 쓴다
+ * JPA 로 저장하지 않으므로 id 는 DB 가 매긴다 (IDENTITY), 스냅샷은 이 id 까지를 반영했다고 기록한다
+ */
+@Entity
+@Table(name = "stock_ledger", indexes = @Index(name = "idx_stock_ledger_item", columnList = "item_id, ledger_id"))
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class StockLedgerEntry {
+
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "ledger_id")
+    private Long id;
+
+    @Column(name = "item_id", nullable = false)
+    private Long itemId;
+
+    private int delta;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16, nullable = false)
+    private StockChangeReason reason;
+
+    @Column(name = "order_id")
+    private Long orderId;
+
+    private LocalDateTime createdAt;
+
+    public StockLedgerEntry(Long itemId, int delta, StockChangeReason reason, Long orderId) {
+        this.itemId = itemId;
+        this.delta = delta;
+        this.reason = reason;
+        this.orderId = orderId;
+        this.createdAt = LocalDateTime.now();
+    }
+}
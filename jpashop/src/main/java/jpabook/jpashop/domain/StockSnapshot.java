@@ -0,0 +1,31 @@
+package jpabook.jpashop.domain;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 재고 스냅샷 (원장 압축)
+ * 이전 스냅샷 + ledgerPosition 까지의 원장을 상품별로 합친 재고, 상품별 값은 StockSnapshotLine
+ */
+@Entity
+@Table(name = "stock_snapshot")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class StockSnapshot {
+
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "snapshot_id")
+    private Long id;
+
+    private long ledgerPosition; // 반영한 마지막 stock_ledger.ledger_id
+    private LocalDateTime createdAt;
+
+    public StockSnapshot(long ledgerPosition, LocalDateTime createdAt) {
+        this.ledgerPosition = ledgerPosition;
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,37 @@
+package jpabook.jpashop.domain;
+
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.io.Serializable;
+
+/**
+ * 스냅샷의 상품별 재고, insert ... select 로만 만든다
+ */
+@Entity
+@Table(name = "stock_snapshot_line")
+@IdClass(StockSnapshotLine.Key.class)
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class StockSnapshotLine {
+
+    @Id
+    @Column(name = "snapshot_id")
+    private Long snapshotId;
+
+    @Id
+    @Column(name = "item_id")
+    private Long itemId;
+
+    private int quantity;
+
+    @EqualsAndHashCode
+    @NoArgsConstructor
+    public static class Key implements Serializable {
+        private Long snapshotId;
+        private Long itemId;
+    }
+}
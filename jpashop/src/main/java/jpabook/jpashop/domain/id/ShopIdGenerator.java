@@ -0,0 +1,88 @@
+package jpabook.jpashop.domain.id;
+
+import org.hibernate.HibernateException;
+import org.hibernate.MappingException;
+import org.hibernate.boot.model.relational.Database;
+import org.hibernate.boot.model.relational.SqlStringGenerationContext;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.id.PersistentIdentifierGenerator;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * 엔티티 공통 ID 생성기
+ * jpashop.id.strategy 로 방식을 고른다 (IdGenerationConfig 가 Hibernate 설정으로 넘겨준다)
+ *
+ * pooled-lo : 테이블마다 시퀀스(<table>_seq)를 두고 increment-size 만큼 한번에 할당받는다
+ *             시퀀스 조회는 increment-size 건마다 한번이고, 나머지는 메모리에서 채번한다
+ * snowflake : DB 없이 시간순 64bit ID를 만든다 (SnowflakeIdGenerator)
+ *
+ * 두 방식 모두 persist 시점에 ID가 정해지므로 insert 를 JDBC 배치로 묶을 수 있다 (IDENTITY 와 다른 점)
+ */
+public class ShopIdGenerator implements IdentifierGenerator {
+
+    public static final String NAME = "shop_id";
+    public static final String STRATEGY = "jpabook.jpashop.domain.id.ShopIdGenerator";
+
+    public static final String STRATEGY_SETTING = "jpashop.id.strategy";
+    public static final String INCREMENT_SIZE_SETTING = "jpashop.id.increment-size";
+    public static final String NODE_ID_SETTING = "jpashop.id.node-id";
+
+    private IdentifierGenerator sequence;
+    private SnowflakeIdGenerator snowflake;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        Map<?, ?> settings = serviceRegistry.getService(ConfigurationService.class).getSettings();
+        String strategy = setting(settings, STRATEGY_SETTING, "pooled-lo");
+
+        switch (strategy) {
+            case "pooled-lo":
+                Properties sequenceParams = new Properties();
+                sequenceParams.putAll(params);
+                sequenceParams.put(SequenceStyleGenerator.SEQUENCE_PARAM,
+                        params.getProperty(PersistentIdentifierGenerator.TABLE) + "_seq");
+                sequenceParams.put(SequenceStyleGenerator.INCREMENT_PARAM, setting(settings, INCREMENT_SIZE_SETTING, "50"));
+                sequenceParams.put(SequenceStyleGenerator.OPT_PARAM, "pooled-lo");
+                sequence = new SequenceStyleGenerator();
+                sequence.configure(type, sequenceParams, serviceRegistry);
+                break;
+            case "snowflake":
+                snowflake = SnowflakeIdGenerator.forNode(Integer.parseInt(setting(settings, NODE_ID_SETTING, "0")));
+                break;
+            default:
+                throw new MappingException("알 수 없는 " + STRATEGY_SETTING + ": " + strategy + " (pooled-lo | snowflake)");
+        }
+    }
+
+    @Override
+    public void registerExportables(Database database) {
+        if (sequence != null) {
+            sequence.registerExportables(database);
+        }
+    }
+
+    @Override
+    public void initialize(SqlStringGenerationContext context) {
+        if (sequence != null) {
+            sequence.initialize(context);
+        }
+    }
+
+    @Override
+    public Serializable generate(SharedSessionContractImplementor session, Object object) throws HibernateException {
+        return sequence != null ? sequence.generate(session, object) : snowflake.nextId();
+    }
+
+    private static String setting(Map<?, ?> settings, String name, String defaultValue) {
+        Object value = settings.get(name);
+        return value == null ? defaultValue : value.toString();
+    }
+}
@@ -0,0 +1,78 @@
+package jpabook.jpashop.domain.id;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 시간순으로 증가하는 64bit ID (Snowflake 방식)
+ *
+ * | 0 | epoch 이후 밀리초 41bit | 노드 10bit | 밀리초 내 순번 12bit |
+ *
+ * DB 왕복 없이 만들 수 있고, 값이 시간순이라 PK 인덱스 끝에만 추가된다
+ * 노드(jpashop.id.node-id)가 다르면 겹치지 않으므로 인스턴스마다 다른 값을 줘야 한다
+ */
+public class SnowflakeIdGenerator {
+
+    static final long EPOCH = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final long MAX_BACKWARD_MILLIS = 5;
+
+    // 같은 노드는 엔티티 종류와 상관없이 하나의 순번을 공유한다
+    private static final Map<Integer, SnowflakeIdGenerator> NODES = new ConcurrentHashMap<>();
+
+    private final long node;
+    private long lastMillis = -1;
+    private long sequence;
+
+    SnowflakeIdGenerator(int nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("node-id 는 0 ~ " + MAX_NODE_ID + " 사이여야 합니다: " + nodeId);
+        }
+        this.node = (long) nodeId << SEQUENCE_BITS;
+    }
+
+    public static SnowflakeIdGenerator forNode(int nodeId) {
+        return NODES.computeIfAbsent(nodeId, SnowflakeIdGenerator::new);
+    }
+
+    public synchronized long nextId() {
+        long now = currentMillis();
+        if (now < lastMillis) {
+            // 시계가 조금 뒤로 간 경우(NTP 보정 등)는 따라잡을 때까지 기다린다
+            if (lastMillis - now > MAX_BACKWARD_MILLIS) {
+                throw new IllegalStateException("시계가 " + (lastMillis - now) + "ms 뒤로 이동해서 ID를 만들 수 없습니다");
+            }
+            now = waitUntil(lastMillis);
+        }
+
+        if (now == lastMillis) {
+            sequence = (sequence + 1) & SEQUENCE_MASK;
+            if (sequence == 0) { // 1ms 안에 4096개를 다 쓰면 다음 밀리초로
+                now = waitUntil(lastMillis + 1);
+            }
+        } else {
+            sequence = 0;
+        }
+        lastMillis = now;
+
+        return ((now - EPOCH) << (NODE_BITS + SEQUENCE_BITS)) | node | sequence;
+    }
+
+    private long waitUntil(long millis) {
+        long now = currentMillis();
+        while (now < millis) {
+            Thread.onSpinWait();
+            now = currentMillis();
+        }
+        return now;
+    }
+
+    long currentMillis() {
+        return System.currentTimeMillis();
+    }
+}
@@ -1,13 +1,19 @@
 package jpabook.jpashop.domain.item;
 
 import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.LazyGroup;
 
+import javax.persistence.Basic;
 import javax.persistence.Entity;
+import javax.persistence.FetchType;
 
 @Entity
-@Getter
+@Getter @Setter
 public class Album extends Item{
 
+    @Basic(fetch = FetchType.LAZY) @LazyGroup("album")
     private String artist;
+    @Basic(fetch = FetchType.LAZY) @LazyGroup("album")
     private String etc;
 }
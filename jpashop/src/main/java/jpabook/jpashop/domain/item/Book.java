@@ -2,14 +2,23 @@ package jpabook.jpashop.domain.item;
 
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.LazyGroup;
 
+import javax.persistence.Basic;
 import javax.persistence.DiscriminatorValue;
 import javax.persistence.Entity;
+import javax.persistence.FetchType;
 
+/**
+ * 목록/주문에서는 쓰지 않는 상세 필드는 지연 로딩한다 (bytecode enhancement 필요, build.gradle hibernate.enhance)
+ * 같은 LazyGroup 의 필드는 처음 접근할 때 한번에 읽는다
+ */
 @Entity
 @Getter @Setter
 public class Book extends Item{
 
+    @Basic(fetch = FetchType.LAZY) @LazyGroup("book")
     private String author;
+    @Basic(fetch = FetchType.LAZY) @LazyGroup("book")
     private String isbn;
 }
@@ -1,6 +1,7 @@
 package jpabook.jpashop.domain.item;
 
 import jpabook.jpashop.domain.CategoryItem;
+import jpabook.jpashop.domain.id.ShopIdGenerator;
 import jpabook.jpashop.exception.NotEnoughStockException;
 import lombok.Getter;
 import lombok.Setter;
@@ -9,13 +10,17 @@ import javax.persistence.*;
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * 기본은 SINGLE_TABLE, 배포 환경에 따라 프로파일로 바꿀 수 있다
+ * item-joined, item-table-per-class (META-INF/item-*.xml 이 @Inheritance 를 덮어쓴다)
+ */
 @Entity
 @Getter @Setter
 @Inheritance(strategy = InheritanceType.SINGLE_TABLE)
 @DiscriminatorColumn
 public abstract class Item {
 
-    @Id @GeneratedValue
+    @Id @GeneratedValue(generator = ShopIdGenerator.NAME)
     @Column(name = "item_id")
     private Long id;
 
@@ -25,6 +30,7 @@ public abstract class Item {
     private String name;
     private int price;
     private int stockQuantity;
+    private int lowStockThreshold; // 재고가 이 수량 아래로 내려가면 LowStockEvent, 0 이면 알리지 않는다
 
     // 비지니스 로직
     // 엔티티 자체가 해결할 수 있는 것들은 엔티티안에 비지니스 로직을 작성한다
@@ -1,13 +1,19 @@
 package jpabook.jpashop.domain.item;
 
 import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.LazyGroup;
 
+import javax.persistence.Basic;
 import javax.persistence.Entity;
+import javax.persistence.FetchType;
 
 @Entity
-@Getter
+@Getter @Setter
 public class Movie extends Item{
 
+    @Basic(fetch = FetchType.LAZY) @LazyGroup("movie")
     private String actor;
+    @Basic(fetch = FetchType.LAZY) @LazyGroup("movie")
     private String director;
 }
@@ -0,0 +1,9 @@
+/**
+ * 엔티티 공통 ID 생성기 (jpashop.id.strategy)
+ * 패키지에 선언한 생성기는 전역이므로 하위 패키지(item)의 엔티티도 같은 이름으로 사용한다
+ */
+@GenericGenerator(name = ShopIdGenerator.NAME, strategy = ShopIdGenerator.STRATEGY)
+package jpabook.jpashop.domain;
+
+import jpabook.jpashop.domain.id.ShopIdGenerator;
+import org.hibernate.annotations.GenericGenerator;
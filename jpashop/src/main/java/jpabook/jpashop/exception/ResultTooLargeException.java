@@ -0,0 +1,19 @@
+package jpabook.jpashop.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 한번에 돌려주기에는 결과가 너무 많은 조회 (422), 스트리밍/페이징 API 를 써야 한다
+ */
+@ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+public class ResultTooLargeException extends RuntimeException {
+
+    public ResultTooLargeException(String message) {
+        super(message);
+    }
+
+    public ResultTooLargeException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,75 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.Address;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+
+@Repository
+@RequiredArgsConstructor
+public class AddressRepository {
+
+    private final EntityManager em;
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 같은 내용의 주소가 있으면 그 행을, 없으면 새로 저장해서 영속 상태의 주소를 돌려준다
+     * id 는 내용 해시이고, 같은 id 에 다른 주소가 있으면(해시 충돌) 다음 id 를 쓴다
+     *
+     * 다른 트랜잭션이 같은 주소를 동시에 저장하면 insert 가 키 중복으로 실패하고, 그 행을 다시 읽는다
+     * DB 에 따라(PostgreSQL) 실패한 문장 하나로 트랜잭션 전체가 중단되므로 insert 는 savepoint 를 잡고 하고,
+     * 실패하면 savepoint 까지만 롤백해서 현재 트랜잭션을 계속 쓴다
+     * (JpaTransactionManager 는 NESTED 를 지원하지 않아서 트랜잭션의 JDBC 커넥션에 직접 savepoint 를 잡는다)
+     */
+    public Address save(Address address) {
+        if (address == null) {
+            return null;
+        }
+        long id = address.contentHash();
+        while (true) {
+            Address found = em.find(Address.class, id);
+            if (found == null) {
+                try {
+                    insert(id, address);
+                } catch (DuplicateKeyException e) {
+                    // 동시에 저장됨, 다시 읽어서 내용을 비교한다
+                }
+                found = em.find(Address.class, id);
+            }
+            if (found != null && found.equals(address)) {
+                return found;
+            }
+            id++;
+        }
+    }
+
+    private void insert(long id, Address address) {
+        jdbcTemplate.execute((ConnectionCallback<Integer>) con -> {
+            Savepoint savepoint = con.getAutoCommit() ? null : con.setSavepoint();
+            try (PreparedStatement ps = con.prepareStatement(
+                    "insert into address (address_id, city, street, zipcode) values (?, ?, ?, ?)")) {
+                ps.setLong(1, id);
+                ps.setString(2, address.getCity());
+                ps.setString(3, address.getStreet());
+                ps.setString(4, address.getZipcode());
+                int inserted = ps.executeUpdate();
+                if (savepoint != null) {
+                    con.releaseSavepoint(savepoint);
+                }
+                return inserted;
+            } catch (SQLException e) {
+                if (savepoint != null) {
+                    con.rollback(savepoint);
+                }
+                throw e; // JdbcTemplate 이 DuplicateKeyException 으로 바꾼다
+            }
+        });
+    }
+}
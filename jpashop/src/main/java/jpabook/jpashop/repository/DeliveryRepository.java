@@ -0,0 +1,77 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.DeliveryStatus;
+import jpabook.jpashop.domain.OrderStatus;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+@Repository
+@RequiredArgsConstructor
+public class DeliveryRepository {
+
+    private static final int FETCH_SIZE = 1000;
+
+    private final EntityManager em;
+
+    public Delivery findOne(Long id) {
+        return em.find(Delivery.class, id);
+    }
+
+    /**
+     * 벌크 상태 변경
+     * from 상태인 배송만 변경되므로 잘못된 전이는 where 절에서 걸러진다
+     * 벌크 연산은 영속성 컨텍스트를 거치지 않기 때문에 실행 후 비워준다
+     */
+    public int updateStatus(Collection<Long> deliveryIds, DeliveryStatus from, DeliveryStatus to) {
+        int updated = em.createQuery(
+                        "update Delivery d set d.status = :to " +
+                                "where d.id in :ids and d.status = :from")
+                .setParameter("to", to)
+                .setParameter("ids", deliveryIds)
+                .setParameter("from", from)
+                .executeUpdate();
+        em.clear();
+        return updated;
+    }
+
+    public Map<DeliveryStatus, Long> countByStatus() {
+        List<Object[]> rows = em.createQuery(
+                        "select d.status, count(d) from Delivery d group by d.status", Object[].class)
+                .getResultList();
+
+        Map<DeliveryStatus, Long> result = new EnumMap<>(DeliveryStatus.class);
+        for (Object[] row : rows) {
+            if (row[0] != null) {
+                result.put((DeliveryStatus) row[0], (Long) row[1]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 배송 묶음(DeliveryBatcher)용, 주문 상태이고 배송 준비 중인 배송 [deliveryId, orderId, zipcode]
+     */
+    public void streamReady(Consumer<Object[]> consumer) {
+        try (Stream<Object[]> rows = em.createQuery(
+                        "select d.id, o.id, a.zipcode from Order o " +
+                                "join o.delivery d " +
+                                "left join d.address a " +
+                                "where o.status = :order and d.status = :ready", Object[].class)
+                .setParameter("order", OrderStatus.ORDER)
+                .setParameter("ready", DeliveryStatus.READY)
+                .setHint(QueryHints.HINT_FETCH_SIZE, FETCH_SIZE)
+                .getResultStream()) {
+            rows.forEach(consumer);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.IdempotencyKey;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+
+@Repository
+@RequiredArgsConstructor
+public class IdempotencyKeyRepository {
+
+    private final EntityManager em;
+
+    /**
+     * 바로 flush 해서 키 중복을 커밋 시점이 아닌 여기서 DataIntegrityViolationException 으로 알린다
+     * 같은 키로 동시에 들어온 요청은 먼저 insert 한 트랜잭션이 끝날 때까지 기다렸다가 실패한다
+     */
+    public void save(IdempotencyKey idempotencyKey) {
+        em.persist(idempotencyKey);
+        em.flush();
+    }
+
+    public IdempotencyKey find(String key) {
+        return em.find(IdempotencyKey.class, key);
+    }
+
+    public int deleteCreatedBefore(LocalDateTime before) {
+        return em.createQuery("delete from IdempotencyKey k where k.createdAt < :before")
+                .setParameter("before", before)
+                .executeUpdate();
+    }
+}
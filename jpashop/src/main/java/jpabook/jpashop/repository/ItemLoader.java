@@ -0,0 +1,196 @@
+package jpabook.jpashop.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Repository;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManagerFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 상품 가격/이름 조회기 (ItemRepository 앞단)
+ * 1. single-flight : 같은 상품을 동시에 조회하면 먼저 온 요청의 조회 결과를 나눠 쓴다
+ * 2. micro-batch : batch-window 안에 들어온 서로 다른 상품 조회를 where id in (...) 한번으로 묶는다
+ *
+ * 결과는 엔티티가 아닌 읽기 전용 값(ItemView)이고 조회가 끝나면 바로 버린다 (캐시가 아님)
+ * 조회는 별도 EntityManager(= 커넥션)로 하므로, 호출하는 쪽은 커넥션을 잡지 않은 상태에서 부르는 것이 좋다
+ */
+@Repository
+public class ItemLoader {
+
+    private static final int IN_QUERY_MAX_SIZE = 1000;
+
+    private final EntityManagerFactory emf;
+    private final ScheduledExecutorService executor;
+    private final long batchWindowNanos;
+    private final int maxBatchSize;
+
+    private final Map<Long, CompletableFuture<ItemView>> inFlight = new ConcurrentHashMap<>();
+    private final Object lock = new Object();
+    private List<Long> pending = new ArrayList<>(); // lock
+
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder queries = new LongAdder();
+
+    public ItemLoader(EntityManagerFactory emf,
+                      @Value("${jpashop.item-loader.batch-window:2ms}") Duration batchWindow,
+                      @Value("${jpashop.item-loader.max-batch-size:100}") int maxBatchSize,
+                      @Value("${jpashop.item-loader.threads:2}") int threads) {
+        this.emf = emf;
+        this.executor = new ScheduledThreadPoolExecutor(threads, new CustomizableThreadFactory("item-loader-"));
+        this.batchWindowNanos = batchWindow.toNanos();
+        this.maxBatchSize = Math.max(1, Math.min(maxBatchSize, IN_QUERY_MAX_SIZE));
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdown();
+    }
+
+    /**
+     * @return 상품이 없으면 null
+     */
+    public ItemView load(Long itemId) {
+        return join(future(itemId));
+    }
+
+    /**
+     * 여러 상품을 먼저 모두 요청하고 기다리므로 같은 batch-window 의 in 쿼리로 묶인다
+     * @return 없는 상품은 빠진다, 순서는 itemIds 순
+     */
+    public Map<Long, ItemView> loadAll(Collection<Long> itemIds) {
+        Map<Long, CompletableFuture<ItemView>> futures = new LinkedHashMap<>();
+        for (Long itemId : itemIds) {
+            futures.computeIfAbsent(itemId, this::future);
+        }
+        Map<Long, ItemView> views = new LinkedHashMap<>();
+        futures.forEach((itemId, future) -> {
+            ItemView view = join(future);
+            if (view != null) {
+                views.put(itemId, view);
+            }
+        });
+        return views;
+    }
+
+    /**
+     * 요청된 조회 수, 실제로 실행한 쿼리 수 (모니터링/부하 테스트용)
+     */
+    public long getLoadCount() {
+        return loads.sum();
+    }
+
+    public long getQueryCount() {
+        return queries.sum();
+    }
+
+    private CompletableFuture<ItemView> future(Long itemId) {
+        loads.increment();
+        CompletableFuture<ItemView> future = inFlight.get(itemId);
+        if (future == null) {
+            CompletableFuture<ItemView> created = new CompletableFuture<>();
+            future = inFlight.putIfAbsent(itemId, created);
+            if (future == null) {
+                future = created;
+                enqueue(itemId);
+            }
+        }
+        return future;
+    }
+
+    private static ItemView join(CompletableFuture<ItemView> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 창이 비어 있으면 batch-window 뒤에 묶음을 실행하도록 예약하고,
+     * 그 전에 max-batch-size 가 차면 요청 스레드에서 바로 실행한다
+     */
+    private void enqueue(Long itemId) {
+        if (batchWindowNanos <= 0) {
+            flush(List.of(itemId));
+            return;
+        }
+
+        List<Long> full = null;
+        synchronized (lock) {
+            pending.add(itemId);
+            if (pending.size() >= maxBatchSize) {
+                full = pending;
+                pending = new ArrayList<>();
+            } else if (pending.size() == 1) {
+                executor.schedule(this::flushPending, batchWindowNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+        if (full != null) {
+            flush(full);
+        }
+    }
+
+    private void flushPending() {
+        List<Long> ids;
+        synchronized (lock) {
+            if (pending.isEmpty()) {
+                return; // 창이 닫히기 전에 max-batch-size 로 이미 실행됨
+            }
+            ids = pending;
+            pending = new ArrayList<>();
+        }
+        flush(ids);
+    }
+
+    /**
+     * 완료 전에 inFlight 에서 먼저 빼서, 이후에 오는 요청은 새로 조회하게 한다
+     */
+    private void flush(List<Long> ids) {
+        Map<Long, ItemView> views = new HashMap<>();
+        try {
+            queries.increment();
+            ReadOnlyEntityManagers.run(emf, em -> em.createQuery(
+                            "select i.id, i.name, i.price, i.stockQuantity from Item i where i.id in :ids", Object[].class)
+                    .setParameter("ids", ids)
+                    .getResultList()
+                    .forEach(row -> views.put((Long) row[0],
+                            new ItemView((Long) row[0], (String) row[1], (Integer) row[2], (Integer) row[3]))));
+        } catch (RuntimeException e) {
+            ids.forEach(id -> inFlight.remove(id).completeExceptionally(e));
+            return;
+        }
+        ids.forEach(id -> inFlight.remove(id).complete(views.get(id)));
+    }
+
+    /**
+     * 조회 시점의 상품 값, 재고는 참고용이다 (차감은 ItemRepository.removeStock)
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class ItemView {
+        private Long id;
+        private String name;
+        private int price;
+        private int stockQuantity;
+    }
+}
@@ -0,0 +1,36 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.ItemPrice;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import java.sql.PreparedStatement;
+
+@Repository
+@RequiredArgsConstructor
+public class ItemPriceRepository {
+
+    private static final int FETCH_SIZE = 1000;
+
+    private final EntityManager em;
+    private final JdbcTemplate jdbcTemplate;
+
+    public void save(ItemPrice itemPrice) {
+        em.persist(itemPrice);
+    }
+
+    /**
+     * 전체 이력 [item_id, price, effective_from], 상품별 effective_from 순
+     */
+    public void streamAll(RowCallbackHandler handler) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "select item_id, price, effective_from from item_price order by item_id, effective_from, item_price_id");
+            statement.setFetchSize(FETCH_SIZE);
+            return statement;
+        }, handler);
+    }
+}
@@ -2,16 +2,45 @@ package jpabook.jpashop.repository;
 
 import jpabook.jpashop.domain.item.Item;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Repository;
 
+import javax.annotation.PostConstruct;
 import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
 
 @Repository
 @RequiredArgsConstructor
 public class ItemRepository {
 
     private final EntityManager em;
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 재고 컬럼이 있는 테이블
+     * 상속 매핑(application-item-*.yml)에 따라 SINGLE_TABLE, JOINED 는 item 하나, TABLE_PER_CLASS 는 하위 타입 테이블마다 있다
+     */
+    private List<String> stockTables;
+
+    @PostConstruct
+    void resolveStockTables() {
+        stockTables = em.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                .getMetamodel().entityPersisters().values().stream()
+                .filter(p -> Item.class.isAssignableFrom(p.getMappedClass()) && !p.getEntityMetamodel().isAbstract())
+                .map(p -> ((AbstractEntityPersister) p).getPropertyTableName("stockQuantity"))
+                .distinct()
+                .sorted()
+                .collect(Collectors.toList());
+    }
 
     public void save(Item item) {
         if(item.getId() == null) {
@@ -27,8 +56,116 @@ public class ItemRepository {
         return em.find(Item.class, id);
     }
 
+    /**
+     * 행 락을 잡고 조회한다, 재고를 읽고 고쳐 쓰는 동안 다른 트랜잭션의 update 로 바뀌지 않도록
+     * 이미 영속성 컨텍스트에 있는 엔티티는 락만 잡고 예전 값을 그대로 돌려주므로 락을 잡으면서 다시 읽는다(refresh)
+     */
+    public Item findForUpdate(Long id) {
+        Item item = em.find(Item.class, id);
+        if (item != null) {
+            em.refresh(item, LockModeType.PESSIMISTIC_WRITE);
+        }
+        return item;
+    }
+
+    /**
+     * 하위 타입을 알고 있을 때는 타입을 지정해서 조회한다
+     * JOINED 는 다른 하위 타입 테이블과의 outer join, TABLE_PER_CLASS 는 union 조회를 피할 수 있다
+     */
+    public <T extends Item> T findOne(Class<T> type, Long id) {
+        return em.find(type, id);
+    }
+
+    /**
+     * 엔티티를 조회하지 않고 주문 상품에 연결할 때 사용 (select 없이 프록시)
+     */
+    public Item getReference(Long id) {
+        return em.getReference(Item.class, id);
+    }
+
+    /**
+     * 여러 상품을 한번의 쿼리로 행 락을 잡고 조회한다, 락 순서를 일정하게 하기 위해 id 순
+     */
+    public List<Item> findAllForUpdate(Collection<Long> ids) {
+        return em.createQuery("select i from Item i where i.id in :ids order by i.id", Item.class)
+                .setParameter("ids", ids)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList();
+    }
+
     public List<Item> findAll() {
         return em.createQuery("select i from Item i", Item.class)
                 .getResultList();
     }
+
+    /**
+     * 상품별 재고를 한번에 증가시킨다 (JDBC batch)
+     * 영속성 컨텍스트를 거치지 않으므로 호출 전에 flush, 호출 후에는 clear 되어 있어야 한다
+     * 락 순서를 일정하게 하기 위해 상품 id 순으로 실행한다
+     */
+    public void addStockAll(Map<Long, Integer> quantities) {
+        List<Object[]> args = new ArrayList<>();
+        new TreeMap<>(quantities).forEach((itemId, quantity) -> args.add(new Object[]{quantity, itemId}));
+
+        for (String table : stockTables) {
+            jdbcTemplate.batchUpdate("update " + table + " set stock_quantity = stock_quantity + ? where item_id = ?", args);
+        }
+    }
+
+    /**
+     * 재고를 조회 없이 조건부 update 한번으로 차감한다
+     * 동시 주문이 같은 재고를 읽고 덮어써서 차감이 사라지는 일이 없고, 행 락도 update 하는 동안만 잡는다
+     * 영속성 컨텍스트를 거치지 않으므로 같은 트랜잭션에서 해당 상품 엔티티를 읽어둔 상태면 안된다
+     *
+     * @return 재고가 부족하면(또는 상품이 없으면) false
+     */
+    public boolean removeStock(Long itemId, int quantity) {
+        int updated = 0;
+        for (String table : stockTables) {
+            updated += jdbcTemplate.update("update " + table + " set stock_quantity = stock_quantity - ?" +
+                    " where item_id = ? and stock_quantity >= ?", quantity, itemId, quantity);
+        }
+        return updated > 0;
+    }
+
+    /**
+     * 재고만 조회, removeStock 직후 같은 트랜잭션에서 읽으면 update 로 잡은 행 락 덕분에 차감 직후의 값이다
+     * @return 상품이 없으면 null
+     */
+    public Integer findStockQuantity(Long itemId) {
+        for (String table : stockTables) {
+            List<Integer> quantities = jdbcTemplate.queryForList(
+                    "select stock_quantity from " + table + " where item_id = ?", Integer.class, itemId);
+            if (!quantities.isEmpty()) {
+                return quantities.get(0);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 재고 알림 기준이 있는 상품 [id, lowStockThreshold]
+     */
+    public List<Object[]> findLowStockThresholds() {
+        return em.createQuery("select i.id, i.lowStockThreshold from Item i where i.lowStockThreshold > 0", Object[].class)
+                .getResultList();
+    }
+
+    /**
+     * 모든 상품의 현재 재고 [item_id, stock_quantity], 재고 원장 검증용
+     */
+    public void streamStocks(RowCallbackHandler handler) {
+        for (String table : stockTables) {
+            jdbcTemplate.query("select item_id, stock_quantity from " + table, handler);
+        }
+    }
+
+    /**
+     * 주문 폼 스냅샷용, 엔티티가 아닌 필요한 값만 조회
+     * [id, name, price, stockQuantity]
+     */
+    public List<Object[]> findAllForSnapshot() {
+        return em.createQuery("select i.id, i.name, i.price, i.stockQuantity from Item i", Object[].class)
+                .getResultList();
+    }
 }
@@ -0,0 +1,86 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.OrderStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 회원별 주문 수 / 누적 주문 금액 (Member.orderCount, Member.totalSpent)
+ * 엔티티를 읽고 고쳐 쓰지 않고 update 로 증감해서, 같은 회원의 동시 주문에도 값이 유실되지 않는다
+ */
+@Repository
+@RequiredArgsConstructor
+public class MemberOrderStatsRepository {
+
+    private final EntityManager em;
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @return [주문 수, 누적 주문 금액], 회원이 없으면 null
+     */
+    public long[] find(Long memberId) {
+        List<Object[]> rows = em.createQuery(
+                        "select m.orderCount, m.totalSpent from Member m where m.id = :memberId", Object[].class)
+                .setParameter("memberId", memberId)
+                .getResultList();
+        return rows.isEmpty() ? null : new long[]{(Long) rows.get(0)[0], (Long) rows.get(0)[1]};
+    }
+
+    public void add(Long memberId, long count, long amount) {
+        em.createQuery("update Member m" +
+                        " set m.orderCount = m.orderCount + :count, m.totalSpent = m.totalSpent + :amount" +
+                        " where m.id = :memberId")
+                .setParameter("count", count)
+                .setParameter("amount", amount)
+                .setParameter("memberId", memberId)
+                .executeUpdate();
+    }
+
+    /**
+     * 회원별 증감을 한번에 반영한다 (JDBC batch)
+     * 락 순서를 일정하게 하기 위해 회원 id 순으로 실행한다
+     *
+     * @param stats memberId -> [count, amount]
+     */
+    public void addAll(Map<Long, long[]> stats) {
+        List<Object[]> args = new ArrayList<>();
+        new TreeMap<>(stats).forEach((memberId, stat) -> args.add(new Object[]{stat[0], stat[1], memberId}));
+
+        jdbcTemplate.batchUpdate("update member set order_count = order_count + ?, total_spent = total_spent + ? where member_id = ?", args);
+    }
+
+    /**
+     * 주문들의 회원별 [memberId, 주문 수, 주문 금액]
+     */
+    public List<Object[]> sumByMember(Collection<Long> orderIds) {
+        return em.createQuery(
+                        "select o.member.id, count(distinct o.id), sum(oi.orderPrice * oi.count)" +
+                                " from Order o" +
+                                " join o.orderItems oi" +
+                                " where o.id in :orderIds" +
+                                " group by o.member.id", Object[].class)
+                .setParameter("orderIds", orderIds)
+                .getResultList();
+    }
+
+    /**
+     * 주문 테이블 기준으로 모든 회원의 값을 다시 계산한다
+     * 서비스를 거치지 않고 주문을 적재한 경우(InitDb, 부하 테스트 데이터)에 사용한다. 아카이브된 주문은 포함되지 않는다
+     */
+    public int recalculateAll() {
+        return em.createQuery("update Member m" +
+                        " set m.orderCount = (select count(o) from Order o where o.member = m and o.status = :status)," +
+                        " m.totalSpent = (select coalesce(sum(oi.orderPrice * oi.count), 0) from OrderItem oi" +
+                        " join oi.order o where o.member = m and o.status = :status)")
+                .setParameter("status", OrderStatus.ORDER)
+                .executeUpdate();
+    }
+}
@@ -2,6 +2,7 @@ package jpabook.jpashop.repository;
 
 import jpabook.jpashop.domain.Member;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import java.util.List;
 
@@ -9,4 +10,8 @@ public interface MemberRepository extends JpaRepository<Member, Long> {
 
     // select m from Member m where m.name = :name
     List<Member> findByName(String name);
+
+    // 주문 폼 스냅샷용 [id, name]
+    @Query("select m.id, m.name from Member m")
+    List<Object[]> findAllForSnapshot();
 }
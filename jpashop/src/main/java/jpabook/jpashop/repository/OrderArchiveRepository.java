@@ -0,0 +1,85 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.DeliveryStatus;
+import jpabook.jpashop.domain.OrderStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 주문 아카이브
+ * 테이블 간 이동은 엔티티를 하나씩 읽지 않고 insert ... select / delete 로 한번에 처리한다
+ */
+@Repository
+@RequiredArgsConstructor
+public class OrderArchiveRepository {
+
+    private final EntityManager em;
+
+    /**
+     * before 이전에 주문되었고, 취소되었거나 배송이 완료된 주문
+     */
+    public List<Long> findArchivableIds(LocalDateTime before, int limit) {
+        return em.createQuery(
+                        "select o.id from Order o " +
+                                "join o.delivery d " +
+                                "where o.orderDate < :before " +
+                                "and (o.status = :cancel or d.status = :comp) " +
+                                "order by o.id", Long.class)
+                .setParameter("before", before)
+                .setParameter("cancel", OrderStatus.CANCEL)
+                .setParameter("comp", DeliveryStatus.COMP)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * 주문, 주문상품을 아카이브 테이블로 옮기고 원본(orders, order_item, delivery)을 삭제한다
+     * 호출하는 쪽의 트랜잭션 안에서 실행되어야 한다
+     */
+    public int moveToArchive(List<Long> orderIds, LocalDateTime archivedAt) {
+        @SuppressWarnings("unchecked")
+        List<Number> deliveryIds = em.createNativeQuery(
+                        "select o.delivery_id from orders o where o.order_id in (:orderIds)")
+                .setParameter("orderIds", orderIds)
+                .getResultList();
+
+        int moved = em.createNativeQuery(
+                        "insert into orders_archive " +
+                                "(order_id, member_id, order_date, status, delivery_status, address_id, archived_at) " +
+                                "select o.order_id, o.member_id, o.order_date, o.status, d.status, d.address_id, :archivedAt " +
+                                "from orders o " +
+                                "join delivery d on d.delivery_id = o.delivery_id " +
+                                "where o.order_id in (:orderIds)")
+                .setParameter("archivedAt", archivedAt)
+                .setParameter("orderIds", orderIds)
+                .executeUpdate();
+
+        em.createNativeQuery(
+                        "insert into order_item_archive (order_item_id, order_id, item_id, order_price, count) " +
+                                "select oi.order_item_id, oi.order_id, oi.item_id, oi.order_price, oi.count " +
+                                "from order_item oi " +
+                                "where oi.order_id in (:orderIds)")
+                .setParameter("orderIds", orderIds)
+                .executeUpdate();
+
+        em.createNativeQuery("delete from order_item where order_id in (:orderIds)")
+                .setParameter("orderIds", orderIds)
+                .executeUpdate();
+        em.createNativeQuery("delete from orders where order_id in (:orderIds)")
+                .setParameter("orderIds", orderIds)
+                .executeUpdate();
+        if (!deliveryIds.isEmpty()) {
+            em.createNativeQuery("delete from delivery where delivery_id in (:deliveryIds)")
+                    .setParameter("deliveryIds", deliveryIds)
+                    .executeUpdate();
+        }
+
+        // 벌크 연산은 영속성 컨텍스트를 무시하므로 비워준다
+        em.clear();
+        return moved;
+    }
+}
@@ -6,20 +6,34 @@ import jpabook.jpashop.domain.*;
 import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.repository.order.simplequery.SimpleOrderQueryDto;
 import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
 import javax.persistence.TypedQuery;
 import javax.persistence.criteria.*;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 @RequiredArgsConstructor
 public class OrderRepository {
 
+    private static final int FETCH_SIZE = 1000;
+    private static final int ORDER_LINE_ENTITY_BYTES = 400; // 주문상품 행 하나가 만드는 엔티티, 스냅샷 (대략)
+
     private final EntityManager em;
+    private final JdbcTemplate jdbcTemplate;
+    private final QueryGuard queryGuard;
 
     public void save(Order order) {
         em.persist(order);
@@ -105,7 +119,7 @@ public class OrderRepository {
     }
 
     private BooleanExpression nameLike(String memberName) {
-        if(StringUtils.hasText(memberName)) {
+        if(!StringUtils.hasText(memberName)) {
             return null;
         }
         return QMember.member.name.like(memberName);
@@ -118,31 +132,202 @@ public class OrderRepository {
         return QOrder.order.status.eq(status);
     }
 
+    /**
+     * 아카이브된 주문 검색, 조건은 findAll과 같다
+     */
+    public List<ArchivedOrder> findArchived(OrderSearch orderSearch) {
+        JPAQueryFactory query = new JPAQueryFactory(em);
+        QArchivedOrder archivedOrder = QArchivedOrder.archivedOrder;
+        QMember member = QMember.member;
+
+        List<ArchivedOrder> orders = query.select(archivedOrder)
+                .from(archivedOrder)
+                .join(archivedOrder.member, member).fetchJoin()
+                .where(archivedStatusEq(orderSearch.getOrderStatus()), nameLike(orderSearch.getMemberName()))
+                .orderBy(archivedOrder.orderDate.desc())
+                .limit(1000)
+                .fetch();
+
+        // 페이징(limit)한 조회에는 컬렉션을 fetch join 할 수 없으므로, 주문상품은 조회된 주문들에 대해 한번에 채운다
+        if (!orders.isEmpty()) {
+            em.createQuery(
+                            "select distinct o from ArchivedOrder o " +
+                                    "left join fetch o.orderItems oi " +
+                                    "left join fetch oi.item i " +
+                                    "where o in :orders", ArchivedOrder.class)
+                    .setParameter("orders", orders)
+                    .getResultList();
+        }
+        return orders;
+    }
+
+    private BooleanExpression archivedStatusEq(OrderStatus status) {
+        if(status == null) {
+            return null;
+        }
+        return QArchivedOrder.archivedOrder.status.eq(status);
+    }
+
     public List<Order> findAllWithMemberDelivery() {
         return em.createQuery(
                         "select o from Order o " +
                                 "join fetch o.member m " +
-                                "join fetch  o.delivery d", Order.class)
+                                "join fetch  o.delivery d " +
+                                "left join fetch d.address", Order.class)
                 .getResultList();
     }
 
     // API spec이 repository에 들어온 상황
     public List<SimpleOrderQueryDto> findOrderDtos() {
         return em.createQuery(
-                        "select new jpabook.jpashop.repository.order.simplequery.SimpleOrderQueryDto(o.id, m.name, o.orderDate, o.status, d.address)" +
+                        "select new jpabook.jpashop.repository.order.simplequery.SimpleOrderQueryDto(o.id, m.name, o.orderDate, o.status, a.city, a.street, a.zipcode)" +
                                 " from Order o " +
-                                "join fetch o.member m " +
-                                "join fetch  o.delivery d", SimpleOrderQueryDto.class)
+                                "join o.member m " + // DTO 조회는 엔티티가 아니므로 fetch join 대신 일반 join
+                                "join o.delivery d " +
+                                "left join d.address a", SimpleOrderQueryDto.class)
                 .getResultList();
     }
 
-    public List<Order> findAllWithItem() {
+    /**
+     * 취소 가능한(ORDER 상태) 주문의 [주문 id, 배송 상태]
+     * 검증부터 취소(cancelAll)까지 배송 상태가 바뀌지 않도록 주문, 배송 행에 락을 건다 (id 순으로)
+     */
+    public List<Object[]> findCancelTargets(Collection<Long> orderIds) {
+        return em.createQuery(
+                        "select o.id, d.status from Order o " +
+                                "join o.delivery d " +
+                                "where o.id in :orderIds and o.status = :status " +
+                                "order by o.id", Object[].class)
+                .setParameter("orderIds", orderIds)
+                .setParameter("status", OrderStatus.ORDER)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList();
+    }
+
+    /**
+     * 벌크 취소, 주문 상태이고 배송이 완료되지 않은 주문만 취소된다
+     * 검증(findCancelTargets) 이후에 상태가 바뀐 주문은 where 절에서 걸러지므로 호출하는 쪽에서 건수를 비교한다
+     */
+    public int cancelAll(Collection<Long> orderIds) {
+        int updated = em.createQuery(
+                        "update Order o set o.status = :cancel " +
+                                "where o.id in :orderIds and o.status = :order " +
+                                "and o.delivery.id in (select d.id from Delivery d where d.status <> :comp)")
+                .setParameter("cancel", OrderStatus.CANCEL)
+                .setParameter("orderIds", orderIds)
+                .setParameter("order", OrderStatus.ORDER)
+                .setParameter("comp", DeliveryStatus.COMP)
+                .executeUpdate();
+        em.clear();
+        return updated;
+    }
+
+    /**
+     * 주문들에 포함된 상품별 주문 수량 합계 [상품 id, 수량]
+     */
+    public List<Object[]> sumCountByItem(Collection<Long> orderIds) {
         return em.createQuery(
+                        "select oi.item.id, sum(oi.count) from OrderItem oi " +
+                                "where oi.order.id in :orderIds " +
+                                "group by oi.item.id", Object[].class)
+                .setParameter("orderIds", orderIds)
+                .getResultList();
+    }
+
+    /**
+     * 기간 내 주문(취소 제외)의 주문상품 [item_id, order_date, count, order_price], 매출 집계용
+     * includeArchived 이면 아카이브된 주문도 포함한다
+     */
+    public void streamOrderLines(LocalDateTime from, LocalDateTime to, boolean includeArchived, RowCallbackHandler handler) {
+        String lines = "select oi.item_id, o.order_date, oi.count, oi.order_price" +
+                " from %s oi join %s o on o.order_id = oi.order_id" +
+                " where o.status = ? and o.order_date >= ? and o.order_date < ?";
+        String sql = String.format(lines, "order_item", "orders");
+        if (includeArchived) {
+            sql += " union all " + String.format(lines, "order_item_archive", "orders_archive");
+        }
+        String query = sql;
+        Object[] args = {OrderStatus.ORDER.name(), Timestamp.valueOf(from), Timestamp.valueOf(to)};
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(query);
+            statement.setFetchSize(FETCH_SIZE);
+            for (int i = 0; i < (includeArchived ? 2 : 1); i++) {
+                for (int j = 0; j < args.length; j++) {
+                    statement.setObject(i * args.length + j + 1, args[j]);
+                }
+            }
+            return statement;
+        }, handler);
+    }
+
+    /**
+     * 컬렉션 fetch join 은 주문상품 수만큼 행이 늘어나므로 QueryGuard 로 행 수를 제한한다
+     * 많으면 주문 id 를 나눠서 여러번 조회한다
+     * 건수, id, 청크 조회가 같은 스냅샷을 보도록 한 트랜잭션(REPEATABLE_READ)에서 실행한다
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public List<Order> findAllWithItem() {
+        long[] lines = countOrderLines();
+        QueryGuard.Execution execution = queryGuard.begin("orders.findAllWithItem", lines[0], lines[1], ORDER_LINE_ENTITY_BYTES);
+        try {
+            if (!execution.isChunked()) {
+                List<Order> orders = findAllWithItem(null);
+                execution.fetched(countLines(orders));
+                return orders;
+            }
+            List<Order> orders = new ArrayList<>();
+            for (List<Long> orderIds : execution.chunks(findAllIds())) {
+                List<Order> chunk = findAllWithItem(orderIds);
+                execution.fetched(countLines(chunk));
+                orders.addAll(chunk);
+            }
+            return orders;
+        } finally {
+            execution.end();
+        }
+    }
+
+    /**
+     * @param orderIds null 이면 전체
+     */
+    private List<Order> findAllWithItem(List<Long> orderIds) {
+        TypedQuery<Order> query = em.createQuery(
                 "select distinct o from Order o " +
                         "join fetch o.member m " +
                         "join fetch o.delivery d " +
+                        "left join fetch d.address " +
                         "join fetch o.orderItems oi " + // ToOne 관계가 아니다
-                        "join fetch oi.item i", Order.class)
+                        "join fetch oi.item i" +
+                        (orderIds == null ? "" : " where o.id in :orderIds order by o.id"), Order.class);
+        if (orderIds != null) {
+            query.setParameter("orderIds", orderIds);
+        }
+        return query.getResultList();
+    }
+
+    /**
+     * 주문-주문상품 조인 결과 행 수 추정용 [주문상품 수, 주문 수] (QueryGuard)
+     */
+    public long[] countOrderLines() {
+        Object[] row = em.createQuery(
+                        "select count(oi), count(distinct oi.order.id) from OrderItem oi", Object[].class)
+                .getSingleResult();
+        return new long[]{(Long) row[0], (Long) row[1]};
+    }
+
+    /**
+     * 전체 주문 id (id 순), QueryGuard 청크 조회용
+     */
+    public List<Long> findAllIds() {
+        return em.createQuery("select o.id from Order o order by o.id", Long.class)
                 .getResultList();
     }
+
+    private static long countLines(List<Order> orders) {
+        long lines = 0;
+        for (Order order : orders) {
+            lines += order.getOrderItems().size();
+        }
+        return lines;
+    }
 }
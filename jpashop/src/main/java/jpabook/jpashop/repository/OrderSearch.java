@@ -2,10 +2,12 @@ package jpabook.jpashop.repository;
 
 import jpabook.jpashop.domain.OrderStatus;
 import lombok.Getter;
+import lombok.Setter;
 
-@Getter
+@Getter @Setter
 public class OrderSearch {
 
     private String memberName;
     private OrderStatus orderStatus;
+    private boolean includeArchived; // 아카이브된 주문까지 검색
 }
@@ -0,0 +1,145 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.exception.ResultTooLargeException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 컬렉션 fetch join, 플랫 조인처럼 결과 행 수가 주문상품 수만큼 늘어나는 조회의 행 수 제한
+ * 1. 조회 전에 추정한 행 수가 max-rows 를 넘으면 조회하지 않고 실패한다 (422, 스트리밍 API를 쓰도록)
+ * 2. chunk-rows 를 넘으면 키(주문 id)를 나눠서 쿼리 하나가 chunk-rows 정도의 행만 읽게 한다
+ *    컬렉션 fetch join 에 setMaxResults 를 쓰면 메모리에서 페이징(HHH000104)하므로 키로 나눈다
+ * 쿼리별 실행 횟수, 쿼리 한번의 최대 행 수, 결과 전체의 최대 행 수/추정 힙 크기를 기록한다
+ */
+@Slf4j
+@Component
+public class QueryGuard {
+
+    private static final int IN_QUERY_MAX_SIZE = 1000;
+
+    private final long chunkRows;
+    private final long maxRows;
+    private final Map<String, Stats> stats = new ConcurrentHashMap<>();
+
+    public QueryGuard(@Value("${jpashop.query-guard.chunk-rows:5000}") long chunkRows,
+                      @Value("${jpashop.query-guard.max-rows:100000}") long maxRows) {
+        if (chunkRows <= 0 || maxRows < chunkRows) {
+            throw new IllegalArgumentException("query-guard 는 0 < chunk-rows <= max-rows 이어야 합니다");
+        }
+        this.chunkRows = chunkRows;
+        this.maxRows = maxRows;
+    }
+
+    /**
+     * @param estimatedRows 조회 전에 추정한 결과 행 수
+     * @param keys          결과 행이 속한 키(주문) 수, 키 하나당 평균 행 수로 청크 크기를 정한다
+     * @param rowBytes      결과 행 하나의 대략적인 힙 크기
+     * @throws ResultTooLargeException 추정 행 수가 max-rows 를 넘으면
+     */
+    public Execution begin(String query, long estimatedRows, long keys, int rowBytes) {
+        Stats stat = stats.computeIfAbsent(query, q -> new Stats());
+        if (estimatedRows > maxRows) {
+            stat.rejected.increment();
+            throw new ResultTooLargeException(query + " 의 결과가 너무 많습니다. rows=" + estimatedRows
+                    + ", max-rows=" + maxRows + " (스트리밍 API를 사용하세요)");
+        }
+
+        int keysPerChunk = 0;
+        if (estimatedRows > chunkRows && keys > 0) {
+            double rowsPerKey = (double) estimatedRows / keys;
+            keysPerChunk = (int) Math.max(1, Math.min(IN_QUERY_MAX_SIZE, (long) (chunkRows / rowsPerKey)));
+            stat.chunked.increment();
+        }
+        stat.executions.increment();
+        return new Execution(query, stat, rowBytes, keysPerChunk);
+    }
+
+    /**
+     * 쿼리 이름 → 통계 (모니터링/부하 테스트용)
+     */
+    public Map<String, StatsView> getStats() {
+        Map<String, StatsView> result = new TreeMap<>();
+        stats.forEach((query, stat) -> result.put(query, new StatsView(
+                stat.executions.sum(), stat.chunked.sum(), stat.rejected.sum(),
+                stat.peakQueryRows.get(), stat.peakRows.get(), stat.peakBytes.get())));
+        return result;
+    }
+
+    /**
+     * 조회 한번 (청크로 나누면 쿼리 여러번)
+     */
+    public static class Execution {
+
+        private final String query;
+        private final Stats stat;
+        private final int rowBytes;
+        private final int keysPerChunk;
+        private long rows;
+
+        private Execution(String query, Stats stat, int rowBytes, int keysPerChunk) {
+            this.query = query;
+            this.stat = stat;
+            this.rowBytes = rowBytes;
+            this.keysPerChunk = keysPerChunk;
+        }
+
+        public boolean isChunked() {
+            return keysPerChunk > 0;
+        }
+
+        public <K> List<List<K>> chunks(List<K> keys) {
+            List<List<K>> chunks = new ArrayList<>();
+            for (int i = 0; i < keys.size(); i += keysPerChunk) {
+                chunks.add(keys.subList(i, Math.min(i + keysPerChunk, keys.size())));
+            }
+            return chunks;
+        }
+
+        /**
+         * 쿼리 한번이 읽은 행 수
+         */
+        public void fetched(long queryRows) {
+            rows += queryRows;
+            stat.peakQueryRows.accumulateAndGet(queryRows, Math::max);
+        }
+
+        public void end() {
+            stat.peakRows.accumulateAndGet(rows, Math::max);
+            stat.peakBytes.accumulateAndGet(rows * rowBytes, Math::max);
+            if (isChunked()) {
+                log.info("{} fetched {} rows in chunks of {} keys", query, rows, keysPerChunk);
+            }
+        }
+    }
+
+    private static class Stats {
+        private final LongAdder executions = new LongAdder();
+        private final LongAdder chunked = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final AtomicLong peakQueryRows = new AtomicLong();
+        private final AtomicLong peakRows = new AtomicLong();
+        private final AtomicLong peakBytes = new AtomicLong();
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class StatsView {
+        private long executions;
+        private long chunkedExecutions;
+        private long rejected;
+        private long peakQueryRows;
+        private long peakRows;
+        private long peakEstimatedBytes;
+    }
+}
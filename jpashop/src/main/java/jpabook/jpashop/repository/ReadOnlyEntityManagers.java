@@ -0,0 +1,37 @@
+package jpabook.jpashop.repository;
+
+import org.hibernate.Session;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.function.Consumer;
+
+/**
+ * 스프링 트랜잭션에 묶이지 않은 조회 전용 EntityManager
+ * 요청 스레드가 아닌 곳(배치 로더, 병렬 조회 레인)에서 커넥션 하나를 잡고 읽기만 하고 롤백한다
+ * 엔티티 스냅샷을 만들지 않고(read only) 커넥션도 read only 로 둔다
+ */
+public final class ReadOnlyEntityManagers {
+
+    private ReadOnlyEntityManagers() {
+    }
+
+    public static void run(EntityManagerFactory emf, Consumer<EntityManager> work) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            Session session = em.unwrap(Session.class);
+            session.setDefaultReadOnly(true);
+            em.getTransaction().begin();
+            session.doWork(connection -> connection.setReadOnly(true));
+            work.accept(em);
+        } finally {
+            try {
+                if (em.getTransaction().isActive()) {
+                    em.getTransaction().rollback(); // 조회 전용
+                }
+            } finally {
+                em.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.Reservation;
+import jpabook.jpashop.domain.ReservationStatus;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+@Repository
+@RequiredArgsConstructor
+public class ReservationRepository {
+
+    private static final int FETCH_SIZE = 1000;
+
+    private final EntityManager em;
+
+    public void save(Reservation reservation) {
+        em.persist(reservation);
+    }
+
+    public Reservation findOne(Long id) {
+        return em.find(Reservation.class, id);
+    }
+
+    /**
+     * 예약 확정/취소/만료가 동시에 같은 예약을 처리하지 않도록 행 락을 잡고 조회한다
+     */
+    public Reservation findForUpdate(Long id) {
+        return em.find(Reservation.class, id, LockModeType.PESSIMISTIC_WRITE);
+    }
+
+    /**
+     * 아직 RESERVED 인 예약만 행 락을 잡고 조회한다, 락 순서를 일정하게 하기 위해 id 순
+     */
+    public List<Reservation> findReservedForUpdate(Collection<Long> ids) {
+        return em.createQuery("select r from Reservation r" +
+                        " where r.id in :ids and r.status = :status" +
+                        " order by r.id", Reservation.class)
+                .setParameter("ids", ids)
+                .setParameter("status", ReservationStatus.RESERVED)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList();
+    }
+
+    /**
+     * 만료 타이머 복구용 RESERVED 예약 [id, expiresAt]
+     */
+    public void streamReserved(Consumer<Object[]> consumer) {
+        try (Stream<Object[]> rows = em.createQuery(
+                        "select r.id, r.expiresAt from Reservation r where r.status = :status", Object[].class)
+                .setParameter("status", ReservationStatus.RESERVED)
+                .setHint(QueryHints.HINT_FETCH_SIZE, FETCH_SIZE)
+                .getResultStream()) {
+            rows.forEach(consumer);
+        }
+    }
+}
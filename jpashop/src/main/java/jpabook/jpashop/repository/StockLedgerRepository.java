@@ -0,0 +1,135 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.StockChangeReason;
+import jpabook.jpashop.domain.StockLedgerEntry;
+import jpabook.jpashop.domain.StockSnapshot;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 재고 원장, 스냅샷
+ * 원장은 건수가 많으므로 엔티티를 거치지 않고 JDBC batch, insert ... select 로 쓰고 조회는 스트리밍한다
+ */
+@Repository
+@RequiredArgsConstructor
+public class StockLedgerRepository {
+
+    private static final int FETCH_SIZE = 1000;
+
+    private final EntityManager em;
+    private final JdbcTemplate jdbcTemplate;
+
+    public void insertAll(List<StockLedgerEntry> entries) {
+        List<Object[]> args = new ArrayList<>(entries.size());
+        for (StockLedgerEntry entry : entries) {
+            args.add(new Object[]{entry.getItemId(), entry.getDelta(), entry.getReason().name(),
+                    entry.getOrderId(), Timestamp.valueOf(entry.getCreatedAt())});
+        }
+        jdbcTemplate.batchUpdate("insert into stock_ledger (item_id, delta, reason, order_id, created_at)" +
+                " values (?, ?, ?, ?, ?)", args);
+    }
+
+    /**
+     * 취소된 주문들의 주문상품 수량만큼 CANCEL 원장을 한번에 쓴다
+     */
+    public int insertCanceled(List<Long> orderIds, LocalDateTime createdAt) {
+        return em.createNativeQuery(
+                        "insert into stock_ledger (item_id, delta, reason, order_id, created_at)" +
+                                " select oi.item_id, oi.count, :reason, oi.order_id, :createdAt" +
+                                " from order_item oi" +
+                                " where oi.order_id in (:orderIds)")
+                .setParameter("reason", StockChangeReason.CANCEL.name())
+                .setParameter("createdAt", createdAt)
+                .setParameter("orderIds", orderIds)
+                .executeUpdate();
+    }
+
+    public StockSnapshot findLatestSnapshot() {
+        List<StockSnapshot> snapshots = em.createQuery("select s from StockSnapshot s order by s.id desc", StockSnapshot.class)
+                .setMaxResults(1)
+                .getResultList();
+        return snapshots.isEmpty() ? null : snapshots.get(0);
+    }
+
+    /**
+     * before 이전에 쓰인 원장의 마지막 id, 없으면 0
+     */
+    public long findLedgerPosition(LocalDateTime before) {
+        Long position = em.createQuery("select max(l.id) from StockLedgerEntry l where l.createdAt < :before", Long.class)
+                .setParameter("before", before)
+                .getSingleResult();
+        return position == null ? 0 : position;
+    }
+
+    public void saveSnapshot(StockSnapshot snapshot) {
+        em.persist(snapshot);
+    }
+
+    /**
+     * 이전 스냅샷(없으면 0) + (from, to] 구간 원장을 상품별로 합쳐서 새 스냅샷에 쓴다
+     * @return 상품 수
+     */
+    public int insertSnapshotLines(Long snapshotId, Long previousSnapshotId, long from, long to) {
+        return em.createNativeQuery(
+                        "insert into stock_snapshot_line (snapshot_id, item_id, quantity)" +
+                                " select :snapshotId, t.item_id, sum(t.quantity) from (" +
+                                "   select l.item_id, l.quantity from stock_snapshot_line l where l.snapshot_id = :previousSnapshotId" +
+                                "   union all" +
+                                "   select g.item_id, g.delta from stock_ledger g where g.ledger_id > :from and g.ledger_id <= :to" +
+                                " ) t group by t.item_id")
+                .setParameter("snapshotId", snapshotId)
+                .setParameter("previousSnapshotId", previousSnapshotId == null ? -1L : previousSnapshotId)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .executeUpdate();
+    }
+
+    public void deleteSnapshotsBefore(Long snapshotId) {
+        em.createQuery("delete from StockSnapshotLine l where l.snapshotId < :snapshotId")
+                .setParameter("snapshotId", snapshotId)
+                .executeUpdate();
+        em.createQuery("delete from StockSnapshot s where s.id < :snapshotId")
+                .setParameter("snapshotId", snapshotId)
+                .executeUpdate();
+    }
+
+    /**
+     * [item_id, quantity]
+     */
+    public void streamSnapshotLines(Long snapshotId, RowCallbackHandler handler) {
+        stream("select item_id, quantity from stock_snapshot_line where snapshot_id = ?", handler, snapshotId);
+    }
+
+    /**
+     * after 이후 원장 [item_id, delta]
+     * @return 원장 건수
+     */
+    public long streamLedger(long after, RowCallbackHandler handler) {
+        long[] count = new long[1];
+        stream("select item_id, delta from stock_ledger where ledger_id > ?", rs -> {
+            count[0]++;
+            handler.processRow(rs);
+        }, after);
+        return count[0];
+    }
+
+    private void stream(String sql, RowCallbackHandler handler, Object... args) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setFetchSize(FETCH_SIZE);
+            for (int i = 0; i < args.length; i++) {
+                statement.setObject(i + 1, args[i]);
+            }
+            return statement;
+        }, handler);
+    }
+}
@@ -0,0 +1,105 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.exception.ServiceUnavailableException;
+import jpabook.jpashop.repository.order.simplequery.SimpleOrderQueryDto;
+import org.hibernate.Session;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * 커서(ScrollableResults) 기반 스트리밍 조회
+ * 전체 결과를 List로 만들지 않고 구독자가 요청(request)할 때마다 다음 row를 읽어서 내보낸다
+ *
+ * 요청 스레드에 묶인 영속성 컨텍스트(OSIV) 대신 스트림마다 EntityManager를 따로 열고,
+ * JDBC 작업은 크기가 제한된 전용 스케줄러에서만 실행한다
+ *
+ * 스트림 하나는 클라이언트가 다 읽을 때까지 커넥션 하나를 잡고 있으므로,
+ * 동시에 열 수 있는 스트림 수(max-concurrent)를 커넥션 풀보다 작게 두고 넘으면 503으로 거절한다
+ */
+@Repository
+public class StreamingQueryRepository {
+
+    private final EntityManagerFactory emf;
+    private final Scheduler scheduler;
+    private final int fetchSize;
+    private final Semaphore permits;
+
+    public StreamingQueryRepository(EntityManagerFactory emf,
+                                    @Value("${jpashop.stream.thread-cap:8}") int threadCap,
+                                    @Value("${jpashop.stream.queued-task-cap:100}") int queuedTaskCap,
+                                    @Value("${jpashop.stream.fetch-size:100}") int fetchSize,
+                                    @Value("${jpashop.stream.max-concurrent:4}") int maxConcurrent) {
+        this.emf = emf;
+        this.scheduler = Schedulers.newBoundedElastic(threadCap, queuedTaskCap, "jpa-stream");
+        this.fetchSize = fetchSize;
+        this.permits = new Semaphore(maxConcurrent);
+    }
+
+    @PreDestroy
+    public void close() {
+        scheduler.dispose();
+    }
+
+    public Flux<SimpleOrderQueryDto> streamOrderDtos() {
+        return stream(em -> em.createQuery(
+                        "select new jpabook.jpashop.repository.order.simplequery.SimpleOrderQueryDto(o.id, m.name, o.orderDate, o.status, a.city, a.street, a.zipcode)" +
+                                " from Order o" +
+                                " join o.member m" +
+                                " join o.delivery d" +
+                                " left join d.address a" +
+                                " order by o.id", SimpleOrderQueryDto.class)
+                .setHint(QueryHints.HINT_FETCH_SIZE, fetchSize)
+                .getResultStream());
+    }
+
+    /**
+     * [id, name]
+     */
+    public Flux<Object[]> streamMembers() {
+        return stream(em -> em.createQuery("select m.id, m.name from Member m order by m.id", Object[].class)
+                .setHint(QueryHints.HINT_FETCH_SIZE, fetchSize)
+                .getResultStream());
+    }
+
+    /**
+     * 구독할 때 허가를 받고, 완료/에러/취소(클라이언트 연결 끊김)되면 돌려준다
+     */
+    private <T> Flux<T> stream(Function<EntityManager, Stream<T>> query) {
+        return Flux.defer(() -> {
+            if (!permits.tryAcquire()) {
+                return Flux.error(new ServiceUnavailableException("동시에 열 수 있는 스트림이 모두 사용 중입니다"));
+            }
+            return Flux.using(this::open, em -> Flux.fromStream(() -> query.apply(em)), this::close)
+                    .subscribeOn(scheduler)
+                    .doFinally(signal -> permits.release());
+        });
+    }
+
+    private EntityManager open() {
+        EntityManager em = emf.createEntityManager();
+        em.unwrap(Session.class).setDefaultReadOnly(true);
+        em.getTransaction().begin();
+        return em;
+    }
+
+    private void close(EntityManager em) {
+        try {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback(); // 조회 전용
+            }
+        } finally {
+            em.close();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package jpabook.jpashop.repository.order.query;
+
+import jpabook.jpashop.domain.OrderStatus;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+public class MemberOrderQueryDto {
+
+    private Long orderId;
+    private LocalDateTime orderDate;
+    private OrderStatus orderStatus;
+    private int totalPrice;
+    private List<OrderItemQueryDto> orderItems;
+
+    public MemberOrderQueryDto(Long orderId, LocalDateTime orderDate, OrderStatus orderStatus) {
+        this.orderId = orderId;
+        this.orderDate = orderDate;
+        this.orderStatus = orderStatus;
+    }
+
+    public void setOrderItems(List<OrderItemQueryDto> orderItems) {
+        this.orderItems = orderItems;
+        this.totalPrice = orderItems.stream().mapToInt(oi -> oi.getOrderPrice() * oi.getCount()).sum();
+    }
+}
@@ -0,0 +1,104 @@
+package jpabook.jpashop.repository.order.query;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.OrderStatus;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * V6 플랫 데이터를 컬럼 단위로 담은 응답
+ * 필드 이름은 컬럼당 한번만 나가고, 반복되는 회원 이름/주소/상품 이름은
+ * 사전(names, addresses, itemNames)에 한번만 넣고 인덱스로 참조한다
+ *
+ * orders.* 는 주문 하나당 한 칸, items.* 는 주문상품 하나당 한 칸이며
+ * orders.itemCount 만큼 items 에서 차례대로 해당 주문의 상품이다
+ */
+@Getter
+public class OrderColumnarDto {
+
+    private final List<String> names = new ArrayList<>();
+    private final List<Address> addresses = new ArrayList<>();
+    private final List<String> itemNames = new ArrayList<>();
+
+    private final OrderColumns orders;
+    private final OrderItemColumns items;
+
+    private OrderColumnarDto(int orderCount, int itemCount) {
+        this.orders = new OrderColumns(orderCount);
+        this.items = new OrderItemColumns(itemCount);
+    }
+
+    public static OrderColumnarDto from(List<OrderFlatDto> flats) {
+        Map<Long, List<OrderFlatDto>> byOrder = new LinkedHashMap<>();
+        for (OrderFlatDto flat : flats) {
+            byOrder.computeIfAbsent(flat.getOrderId(), id -> new ArrayList<>()).add(flat);
+        }
+
+        OrderColumnarDto result = new OrderColumnarDto(byOrder.size(), flats.size());
+        Map<String, Integer> nameIndex = new HashMap<>();
+        Map<Address, Integer> addressIndex = new HashMap<>();
+        Map<String, Integer> itemNameIndex = new HashMap<>();
+
+        int o = 0;
+        int i = 0;
+        for (List<OrderFlatDto> rows : byOrder.values()) {
+            OrderFlatDto order = rows.get(0);
+            result.orders.orderId[o] = order.getOrderId();
+            result.orders.name[o] = indexOf(order.getName(), nameIndex, result.names);
+            result.orders.orderDate.add(order.getOrderDate());
+            result.orders.orderStatus.add(order.getOrderStatus());
+            result.orders.address[o] = indexOf(order.getAddress(), addressIndex, result.addresses);
+            result.orders.itemCount[o] = rows.size();
+            o++;
+
+            for (OrderFlatDto row : rows) {
+                result.items.itemName[i] = indexOf(row.getItemName(), itemNameIndex, result.itemNames);
+                result.items.orderPrice[i] = row.getOrderPrice();
+                result.items.count[i] = row.getCount();
+                i++;
+            }
+        }
+        return result;
+    }
+
+    private static <T> int indexOf(T value, Map<T, Integer> index, List<T> dictionary) {
+        return index.computeIfAbsent(value, v -> {
+            dictionary.add(v);
+            return dictionary.size() - 1;
+        });
+    }
+
+    @Getter
+    public static class OrderColumns {
+        private final long[] orderId;
+        private final int[] name;
+        private final List<LocalDateTime> orderDate;
+        private final List<OrderStatus> orderStatus;
+        private final int[] address;
+        private final int[] itemCount;
+
+        OrderColumns(int size) {
+            orderId = new long[size];
+            name = new int[size];
+            orderDate = new ArrayList<>(size);
+            orderStatus = new ArrayList<>(size);
+            address = new int[size];
+            itemCount = new int[size];
+        }
+    }
+
+    @Getter
+    public static class OrderItemColumns {
+        private final int[] itemName;
+        private final int[] orderPrice;
+        private final int[] count;
+
+        OrderItemColumns(int size) {
+            itemName = new int[size];
+            orderPrice = new int[size];
+            count = new int[size];
+        }
+    }
+}
@@ -19,12 +19,14 @@ public class OrderFlatDto {
     private int orderPrice;
     private int count;
 
-    public OrderFlatDto(Long orderId, String name, LocalDateTime orderDate, OrderStatus orderStatus, Address address, String itemName, int orderPrice, int count) {
+    // 주문상품마다 주소가 반복되므로 같은 주소는 같은 인스턴스를 쓴다
+    public OrderFlatDto(Long orderId, String name, LocalDateTime orderDate, OrderStatus orderStatus,
+                        String city, String street, String zipcode, String itemName, int orderPrice, int count) {
         this.orderId = orderId;
         this.name = name;
         this.orderDate = orderDate;
         this.orderStatus = orderStatus;
-        this.address = address;
+        this.address = Address.intern(city, street, zipcode);
         this.itemName = itemName;
         this.orderPrice = orderPrice;
         this.count = count;
@@ -0,0 +1,209 @@
+package jpabook.jpashop.repository.order.query;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.repository.ReadOnlyEntityManagers;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Repository;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * V4 주문 조회 조립기
+ * 주문 목록을 먼저 읽고, 회원 이름/배송지/주문상품을 IN 쿼리로 묶어서 조회한 뒤 메모리에서 조립한다 (1 + N → 1 + 3)
+ *
+ * 세 조회는 서로 독립적이므로 요청당 최대 parallelism 개의 레인으로 나눠 동시에 실행한다
+ * 레인마다 EntityManager(= 읽기 전용 커넥션)를 따로 열고, 요청 스레드는 커넥션을 잡지 않은 채로 기다린다
+ */
+@Repository
+public class OrderQueryAssembler {
+
+    private static final int IN_QUERY_CHUNK_SIZE = 1000;
+
+    private final EntityManagerFactory emf;
+    private final ExecutorService executor;
+    private final int parallelism;
+
+    public OrderQueryAssembler(EntityManagerFactory emf,
+                               @Value("${jpashop.order-assembly.threads:8}") int threads,
+                               @Value("${jpashop.order-assembly.parallelism:3}") int parallelism) {
+        this.emf = emf;
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new CustomizableThreadFactory("order-assembly-"));
+        this.parallelism = Math.max(parallelism, 1);
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdown();
+    }
+
+    public List<OrderQueryDto> findOrderQueryDtos() {
+        // [orderId, memberId, deliveryId, orderDate, status]
+        List<Object[]> orders = new ArrayList<>();
+        ReadOnlyEntityManagers.run(emf, em -> orders.addAll(findOrderRows(em)));
+        if (orders.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Set<Long> orderIds = new LinkedHashSet<>();
+        Set<Long> memberIds = new LinkedHashSet<>();
+        Set<Long> deliveryIds = new LinkedHashSet<>();
+        for (Object[] row : orders) {
+            orderIds.add((Long) row[0]);
+            memberIds.add((Long) row[1]);
+            deliveryIds.add((Long) row[2]);
+        }
+
+        Map<Long, String> memberNames = new ConcurrentHashMap<>();
+        Set<Long> foundDeliveries = ConcurrentHashMap.newKeySet();
+        Map<Long, Address> addresses = new ConcurrentHashMap<>();
+        Map<Long, List<OrderItemQueryDto>> orderItems = new ConcurrentHashMap<>();
+
+        List<Consumer<EntityManager>> tasks = new ArrayList<>();
+        for (List<Long> ids : chunk(memberIds)) {
+            tasks.add(em -> findMemberNames(em, ids).forEach(row -> memberNames.put((Long) row[0], (String) row[1])));
+        }
+        for (List<Long> ids : chunk(deliveryIds)) {
+            tasks.add(em -> findAddresses(em, ids).forEach(row -> {
+                foundDeliveries.add((Long) row[0]);
+                Address address = Address.intern((String) row[1], (String) row[2], (String) row[3]);
+                if (address != null) {
+                    addresses.put((Long) row[0], address);
+                }
+            }));
+        }
+        for (List<Long> ids : chunk(orderIds)) {
+            tasks.add(em -> orderItems.putAll(findOrderItems(em, ids).stream()
+                    .collect(Collectors.groupingBy(OrderItemQueryDto::getOrderId))));
+        }
+        runAll(tasks);
+
+        // 조회는 레인마다 다른 트랜잭션이므로, 주문 목록을 읽은 뒤에 아카이브된 주문은 배송/주문상품이 비어 있다
+        // 아카이브는 주문, 주문상품, 배송을 한번에 지우므로 비어 있는 주문만 지금도 있는지 다시 확인해서 없어진 주문은 뺀다
+        Set<Long> suspects = new LinkedHashSet<>();
+        for (Object[] row : orders) {
+            if (!foundDeliveries.contains((Long) row[2]) || !orderItems.containsKey((Long) row[0])) {
+                suspects.add((Long) row[0]);
+            }
+        }
+        Set<Long> removed = new LinkedHashSet<>(suspects);
+        for (List<Long> ids : chunk(suspects)) {
+            ReadOnlyEntityManagers.run(emf, em -> removed.removeAll(findExistingOrderIds(em, ids)));
+        }
+
+        List<OrderQueryDto> result = new ArrayList<>(orders.size());
+        for (Object[] row : orders) {
+            Long orderId = (Long) row[0];
+            if (removed.contains(orderId)) {
+                continue;
+            }
+            result.add(new OrderQueryDto(orderId,
+                    memberNames.get((Long) row[1]),
+                    (LocalDateTime) row[3],
+                    (OrderStatus) row[4],
+                    addresses.get((Long) row[2]),
+                    orderItems.getOrDefault(orderId, Collections.emptyList())));
+        }
+        return result;
+    }
+
+    /**
+     * 작업들을 최대 parallelism 개의 레인에 나눠 담아 실행하고 모두 끝날 때까지 기다린다
+     * 레인 하나는 EntityManager 하나로 자기 작업들을 순서대로 처리한다
+     */
+    private void runAll(List<Consumer<EntityManager>> tasks) {
+        int lanes = Math.min(parallelism, tasks.size());
+        if (lanes <= 1) {
+            ReadOnlyEntityManagers.run(emf, em -> tasks.forEach(task -> task.accept(em)));
+            return;
+        }
+
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[lanes];
+        for (int lane = 0; lane < lanes; lane++) {
+            List<Consumer<EntityManager>> laneTasks = new ArrayList<>();
+            for (int i = lane; i < tasks.size(); i += lanes) {
+                laneTasks.add(tasks.get(i));
+            }
+            futures[lane] = CompletableFuture.runAsync(
+                    () -> ReadOnlyEntityManagers.run(emf, em -> laneTasks.forEach(task -> task.accept(em))), executor);
+        }
+
+        try {
+            CompletableFuture.allOf(futures).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static List<List<Long>> chunk(Collection<Long> ids) {
+        List<Long> list = new ArrayList<>(ids);
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < list.size(); from += IN_QUERY_CHUNK_SIZE) {
+            chunks.add(list.subList(from, Math.min(from + IN_QUERY_CHUNK_SIZE, list.size())));
+        }
+        return chunks;
+    }
+
+    private List<Object[]> findOrderRows(EntityManager em) {
+        return em.createQuery(
+                        "select o.id, o.member.id, o.delivery.id, o.orderDate, o.status" +
+                                " from Order o" +
+                                " order by o.id", Object[].class)
+                .getResultList();
+    }
+
+    private List<Long> findExistingOrderIds(EntityManager em, List<Long> orderIds) {
+        return em.createQuery("select o.id from Order o where o.id in :ids", Long.class)
+                .setParameter("ids", orderIds)
+                .getResultList();
+    }
+
+    private List<Object[]> findMemberNames(EntityManager em, List<Long> memberIds) {
+        return em.createQuery("select m.id, m.name from Member m where m.id in :ids", Object[].class)
+                .setParameter("ids", memberIds)
+                .getResultList();
+    }
+
+    /**
+     * [deliveryId, city, street, zipcode]
+     */
+    private List<Object[]> findAddresses(EntityManager em, List<Long> deliveryIds) {
+        return em.createQuery("select d.id, a.city, a.street, a.zipcode from Delivery d left join d.address a where d.id in :ids", Object[].class)
+                .setParameter("ids", deliveryIds)
+                .getResultList();
+    }
+
+    private List<OrderItemQueryDto> findOrderItems(EntityManager em, List<Long> orderIds) {
+        return em.createQuery(
+                        "select new jpabook.jpashop.repository.order.query.OrderItemQueryDto(oi.order.id, i.name, oi.orderPrice, oi.count)" +
+                                " from OrderItem oi" +
+                                " join oi.item i" +
+                                " where oi.order.id in :orderIds", OrderItemQueryDto.class)
+                .setParameter("orderIds", orderIds)
+                .getResultList();
+    }
+}
@@ -29,6 +29,11 @@ public class OrderQueryDto {
         this.address = address;
     }
 
+    // JPQL 생성자 조회용, 같은 주소는 같은 인스턴스를 쓴다
+    public OrderQueryDto(Long orderId, String name, LocalDateTime orderDate, OrderStatus orderStatus, String city, String street, String zipcode) {
+        this(orderId, name, orderDate, orderStatus, Address.intern(city, street, zipcode));
+    }
+
     public OrderQueryDto(Long orderId, String name, LocalDateTime orderDate, OrderStatus orderStatus, Address address, List<OrderItemQueryDto> orderItems) {
         this.orderId = orderId;
         this.name = name;
@@ -1,9 +1,16 @@
 package jpabook.jpashop.repository.order.query;
 
+import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.repository.QueryGuard;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -15,40 +22,19 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class OrderQueryRepository {
 
-    private final EntityManager em;
-
-    public List<OrderQueryDto> findOrderQueryDtos() {
-
-        List<OrderQueryDto> result = findOrders();
-
-        /**
-         * ToMany 관계는 루프를 돌면서 직접 넣어줌.
-         * 왜냐면 join하게 되면 row수가 증가한다
-         */
-        result.forEach(o -> {
-            List<OrderItemQueryDto> orderItems = findOrderItems(o.getOrderId());
-            o.setOrderItems(orderItems);
-        });
+    private static final int FLAT_ROW_BYTES = 200; // OrderFlatDto 하나와 행마다 새로 만드는 문자열, 날짜 (대략)
 
-        return result;
-    }
-
-    private List<OrderItemQueryDto> findOrderItems(Long orderId) {
-        return em.createQuery(
-                        "select new jpabook.jpashop.repository.order.query.OrderItemQueryDto(oi.order.id, i.name, oi.orderPrice, oi.count)" +
-                                "from OrderItem oi " +
-                                "join oi.item i " +
-                                "where oi.order.id = :orderId", OrderItemQueryDto.class)
-                .setParameter("orderId", orderId)
-                .getResultList();
-    }
+    private final EntityManager em;
+    private final QueryGuard queryGuard;
+    private final OrderRepository orderRepository;
 
     private List<OrderQueryDto> findOrders() {
         return em.createQuery(
-                        "select new jpabook.jpashop.repository.order.query.OrderQueryDto(o.id, m.name, o.orderDate, o.status, o.delivery.address) " +
+                        "select new jpabook.jpashop.repository.order.query.OrderQueryDto(o.id, m.name, o.orderDate, o.status, a.city, a.street, a.zipcode) " +
                                 "from Order o " +
                                 "join o.member m " +
-                                "join o.delivery d", OrderQueryDto.class)
+                                "join o.delivery d " +
+                                "left join d.address a", OrderQueryDto.class)
                 .getResultList();
     }
 
@@ -63,12 +49,12 @@ public class OrderQueryRepository {
         Map<Long, List<OrderItemQueryDto>> orderItemMap = orderItems.stream()
                 .collect(Collectors.groupingBy(orderItemQueryDto -> orderItemQueryDto.getOrderId()));
 
-        result.forEach(o -> o.setOrderItems(orderItemMap.get(o.getOrderId())));
+        result.forEach(o -> o.setOrderItems(orderItemMap.getOrDefault(o.getOrderId(), Collections.emptyList())));
 
         return result;
     }
 
-    private List<OrderItemQueryDto> findOrderItemMap(List<List<OrderItemQueryDto>> orderIds) {
+    private List<OrderItemQueryDto> findOrderItemMap(List<Long> orderIds) {
         return em.createQuery(
                         "select new jpabook.jpashop.repository.order.query.OrderItemQueryDto(oi.order.id, i.name, oi.orderPrice, oi.count)" +
                                 "from OrderItem oi " +
@@ -78,21 +64,92 @@ public class OrderQueryRepository {
                 .getResultList();
     }
 
-    private List<List<OrderItemQueryDto>> toOrderIds(List<OrderQueryDto> result) {
+    private List<Long> toOrderIds(List<OrderQueryDto> result) {
         return result.stream()
-                .map(o -> o.getOrderItems())
+                .map(o -> o.getOrderId())
                 .collect(Collectors.toList());
     }
 
+    /**
+     * 회원 주문 내역 (최신순 keyset 페이징)
+     * offset 대신 마지막으로 읽은 (orderDate, orderId) 이후를 조회하므로 뒤 페이지로 가도 앞의 행을 건너뛰며 읽지 않는다
+     * (member_id, orderDate, order_id) 인덱스를 탄다
+     *
+     * @param after null 이면 처음부터
+     */
+    public List<MemberOrderQueryDto> findMemberOrders(Long memberId, OrderCursor after, int limit) {
+        String keyset = after == null ? "" :
+                " and (o.orderDate < :orderDate or (o.orderDate = :orderDate and o.id < :orderId))";
+
+        TypedQuery<MemberOrderQueryDto> query = em.createQuery(
+                        "select new jpabook.jpashop.repository.order.query.MemberOrderQueryDto(o.id, o.orderDate, o.status)" +
+                                " from Order o" +
+                                " where o.member.id = :memberId" + keyset +
+                                " order by o.orderDate desc, o.id desc", MemberOrderQueryDto.class)
+                .setParameter("memberId", memberId)
+                .setMaxResults(limit);
+        if (after != null) {
+            query.setParameter("orderDate", after.getOrderDate())
+                    .setParameter("orderId", after.getOrderId());
+        }
+        List<MemberOrderQueryDto> result = query.getResultList();
+        if (result.isEmpty()) {
+            return result;
+        }
+
+        Map<Long, List<OrderItemQueryDto>> orderItemMap = findOrderItemMap(result.stream()
+                .map(o -> o.getOrderId())
+                .collect(Collectors.toList())).stream()
+                .collect(Collectors.groupingBy(orderItemQueryDto -> orderItemQueryDto.getOrderId()));
+
+        result.forEach(o -> o.setOrderItems(orderItemMap.getOrDefault(o.getOrderId(), Collections.emptyList())));
+        return result;
+    }
+
+    /**
+     * 주문상품 수만큼 행이 늘어나므로 QueryGuard 로 행 수를 제한한다
+     * 많으면 주문 id 를 나눠서 여러번 조회한다
+     * 건수, id, 청크 조회가 같은 스냅샷을 보도록 한 트랜잭션(REPEATABLE_READ)에서 실행한다
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
     public List<OrderFlatDto> findAllByDtos_flat() {
+        long[] lines = orderRepository.countOrderLines();
+        QueryGuard.Execution execution = queryGuard.begin("orders.findAllByDtos_flat",
+                lines[0], lines[1], FLAT_ROW_BYTES);
+        try {
+            if (!execution.isChunked()) {
+                List<OrderFlatDto> flats = findFlats(null);
+                execution.fetched(flats.size());
+                return flats;
+            }
+            List<OrderFlatDto> flats = new ArrayList<>();
+            for (List<Long> chunk : execution.chunks(orderRepository.findAllIds())) {
+                List<OrderFlatDto> rows = findFlats(chunk);
+                execution.fetched(rows.size());
+                flats.addAll(rows);
+            }
+            return flats;
+        } finally {
+            execution.end();
+        }
+    }
 
-        return em.createQuery(
-                "select new jpabook.jpashop.repository.order.query.OrderFlatDto(o.id, m.name, o.orderDate, o.status, o.delivery.address, i.name, oi.orderPrice, oi.count)" +
+    /**
+     * @param orderIds null 이면 전체
+     */
+    private List<OrderFlatDto> findFlats(List<Long> orderIds) {
+        TypedQuery<OrderFlatDto> query = em.createQuery(
+                "select new jpabook.jpashop.repository.order.query.OrderFlatDto(o.id, m.name, o.orderDate, o.status, a.city, a.street, a.zipcode, i.name, oi.orderPrice, oi.count)" +
                         "from Order o " +
                         "join o.member m " +
                         "join o.delivery d " +
+                        "left join d.address a " +
                         "join o.orderItems oi " +
-                        "join oi.item i", OrderFlatDto.class)
-                .getResultList();
+                        "join oi.item i" +
+                        (orderIds == null ? "" : " where o.id in :orderIds order by o.id"), OrderFlatDto.class);
+        if (orderIds != null) {
+            query.setParameter("orderIds", orderIds);
+        }
+        return query.getResultList();
     }
 }
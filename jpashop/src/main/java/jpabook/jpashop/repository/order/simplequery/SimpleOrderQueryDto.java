@@ -1,7 +1,6 @@
 package jpabook.jpashop.repository.order.simplequery;
 
 import jpabook.jpashop.domain.Address;
-import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.OrderStatus;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -9,10 +8,17 @@ import lombok.Data;
 import java.time.LocalDateTime;
 
 @Data
+@AllArgsConstructor
 public class SimpleOrderQueryDto {
     private final Long orderId;
     private final String name;
     private final LocalDateTime orderDate;
     private final OrderStatus orderStatus;
     private final Address address;
+
+    // JPQL 생성자 조회용, 같은 주소는 같은 인스턴스를 쓴다
+    public SimpleOrderQueryDto(Long orderId, String name, LocalDateTime orderDate, OrderStatus orderStatus,
+                               String city, String street, String zipcode) {
+        this(orderId, name, orderDate, orderStatus, Address.intern(city, street, zipcode));
+    }
 }
@@ -0,0 +1,8 @@
+package jpabook.jpashop.service;
+
+/**
+ * 변경 추적 단위
+ */
+public enum Aggregate {
+    ITEM, MEMBER, ORDER
+}
@@ -0,0 +1,15 @@
+package jpabook.jpashop.service;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 상품/회원/주문이 변경되었음을 알리는 이벤트
+ * 리스너는 트랜잭션 커밋 이후에 처리한다 (@TransactionalEventListener)
+ */
+@Getter
+@RequiredArgsConstructor
+public class AggregateChangedEvent {
+
+    private final Aggregate aggregate;
+}
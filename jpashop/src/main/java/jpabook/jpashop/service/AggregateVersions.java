@@ -0,0 +1,48 @@
+package jpabook.jpashop.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 상품/회원/주문별 버전
+ * 커밋된 변경이 있을 때마다 증가하며, 응답 캐시(ETag)의 키로 사용한다
+ * 재시작하면 0부터 다시 시작하므로 기동 시각(epoch)을 같이 붙인다
+ */
+@Component
+public class AggregateVersions {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final Map<Aggregate, AtomicLong> versions = new EnumMap<>(Aggregate.class);
+
+    public AggregateVersions() {
+        for (Aggregate aggregate : Aggregate.values()) {
+            versions.put(aggregate, new AtomicLong());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onChanged(AggregateChangedEvent event) {
+        versions.get(event.getAggregate()).incrementAndGet();
+    }
+
+    public long get(Aggregate aggregate) {
+        return versions.get(aggregate).get();
+    }
+
+    /**
+     * 예) ORDER, MEMBER -> "kx3f1a-o12-m3"
+     */
+    public String tag(Aggregate... aggregates) {
+        StringBuilder sb = new StringBuilder(epoch);
+        for (Aggregate aggregate : aggregates) {
+            sb.append('-')
+                    .append(Character.toLowerCase(aggregate.name().charAt(0)))
+                    .append(get(aggregate));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,123 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.repository.ItemLoader;
+import jpabook.jpashop.repository.ItemLoader.ItemView;
+import jpabook.jpashop.service.CartStore.Cart;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 장바구니, 담기/조회는 메모리(CartStore)에서만 하고 DB 는 주문(checkout)할 때만 쓴다
+ */
+@Service
+@RequiredArgsConstructor
+public class CartService {
+
+    private final CartStore cartStore;
+    private final ItemLoader itemLoader;
+    private final OrderService orderService;
+
+    public void add(Long memberId, Long itemId, int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("수량은 1 이상이어야 합니다");
+        }
+        checkItem(itemId);
+        cartStore.getOrCreate(memberId).add(itemId, count);
+    }
+
+    /**
+     * 수량 변경, 0 이면 뺀다
+     */
+    public void change(Long memberId, Long itemId, int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("수량은 0 이상이어야 합니다");
+        }
+        if (count == 0) {
+            remove(memberId, itemId);
+            return;
+        }
+        checkItem(itemId);
+        cartStore.getOrCreate(memberId).set(itemId, count);
+    }
+
+    public void remove(Long memberId, Long itemId) {
+        Cart cart = cartStore.get(memberId);
+        if (cart != null) {
+            cart.remove(itemId);
+        }
+    }
+
+    public void clear(Long memberId) {
+        cartStore.remove(memberId);
+    }
+
+    /**
+     * 현재 가격으로 계산한 장바구니, 그 사이 삭제된 상품은 빠진다
+     */
+    public CartView find(Long memberId) {
+        Cart cart = cartStore.get(memberId);
+        Map<Long, Integer> lines = cart == null ? Collections.emptyMap() : cart.lines();
+        Map<Long, ItemView> items = itemLoader.loadAll(lines.keySet());
+
+        List<CartLine> cartLines = new ArrayList<>(lines.size());
+        long totalPrice = 0;
+        for (Map.Entry<Long, Integer> line : lines.entrySet()) {
+            ItemView item = items.get(line.getKey());
+            if (item == null) {
+                continue;
+            }
+            cartLines.add(new CartLine(item.getId(), item.getName(), item.getPrice(), line.getValue()));
+            totalPrice += (long) item.getPrice() * line.getValue();
+        }
+        return new CartView(memberId, cartLines, totalPrice);
+    }
+
+    /**
+     * 장바구니 전체를 주문 하나로 (OrderService.orderCart)
+     * 주문 전에 장바구니를 원자적으로 비우고 꺼낸 상품만 주문한다 (같은 회원의 동시 checkout 이 같은 상품을 두번 주문하지 않도록)
+     * 주문이 실패하면 꺼낸 상품을 장바구니에 되돌려 놓는다
+     */
+    public Long checkout(Long memberId) {
+        Cart cart = cartStore.get(memberId);
+        Map<Long, Integer> lines = cart == null ? Collections.emptyMap() : cart.drain();
+        try {
+            return orderService.orderCart(memberId, lines);
+        } catch (RuntimeException e) {
+            if (!lines.isEmpty()) {
+                // 비어 있는 동안 장바구니가 만료됐을 수 있으므로 다시 찾는다
+                cartStore.getOrCreate(memberId).restore(lines);
+            }
+            throw e;
+        }
+    }
+
+    private void checkItem(Long itemId) {
+        if (itemLoader.load(itemId) == null) {
+            throw new IllegalArgumentException("상품이 없습니다. itemId=" + itemId);
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class CartView {
+        private Long memberId;
+        private List<CartLine> lines;
+        private long totalPrice;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class CartLine {
+        private Long itemId;
+        private String name;
+        private int price;
+        private int count;
+    }
+}
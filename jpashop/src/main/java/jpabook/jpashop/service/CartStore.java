@@ -0,0 +1,168 @@
+package jpabook.jpashop.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 회원별 장바구니 (메모리)
+ * 회원 id 로 나눈 segment 마다 접근 순서 LinkedHashMap(LRU)을 두고 segment 단위로 락을 잡는다
+ * 1. 장바구니 수가 max-carts 를 넘으면 segment 에서 가장 오래 쓰지 않은 장바구니부터 버린다
+ * 2. idle-timeout 동안 쓰지 않은 장바구니는 주기적으로 버린다 (접근 순서이므로 앞에서부터 보다가 멈춘다)
+ * 장바구니당 상품 수도 max-lines 로 제한하므로 전체 메모리가 정해진다
+ *
+ * 재시작하거나 인스턴스가 바뀌면 장바구니는 사라진다
+ */
+@Component
+@Lazy(false) // @Scheduled 는 빈이 만들어져야 등록되므로 lazy-initialization 에서 제외
+public class CartStore {
+
+    private static final int SEGMENTS = 16;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final int maxLines;
+    private final long idleTimeoutNanos;
+
+    public CartStore(@Value("${jpashop.cart.max-carts:100000}") int maxCarts,
+                     @Value("${jpashop.cart.max-lines:50}") int maxLines,
+                     @Value("${jpashop.cart.idle-timeout:30m}") Duration idleTimeout) {
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(Math.max(1, maxCarts / SEGMENTS));
+        }
+        this.maxLines = maxLines;
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+    }
+
+    /**
+     * @return 없으면 null
+     */
+    Cart get(Long memberId) {
+        Segment segment = segmentOf(memberId);
+        synchronized (segment) {
+            Cart cart = segment.carts.get(memberId);
+            if (cart != null) {
+                cart.lastAccessed = System.nanoTime();
+            }
+            return cart;
+        }
+    }
+
+    Cart getOrCreate(Long memberId) {
+        Segment segment = segmentOf(memberId);
+        synchronized (segment) {
+            Cart cart = segment.carts.computeIfAbsent(memberId, id -> new Cart(maxLines));
+            cart.lastAccessed = System.nanoTime();
+            return cart;
+        }
+    }
+
+    void remove(Long memberId) {
+        Segment segment = segmentOf(memberId);
+        synchronized (segment) {
+            segment.carts.remove(memberId);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.carts.size();
+            }
+        }
+        return size;
+    }
+
+    @Scheduled(fixedDelayString = "${jpashop.cart.evict-interval:PT1M}",
+            initialDelayString = "${jpashop.cart.evict-interval:PT1M}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                Iterator<Cart> carts = segment.carts.values().iterator();
+                while (carts.hasNext() && now - carts.next().lastAccessed > idleTimeoutNanos) {
+                    carts.remove();
+                }
+            }
+        }
+    }
+
+    private Segment segmentOf(Long memberId) {
+        long h = memberId * 0x9e3779b97f4a7c15L;
+        return segments[(int) (h >>> 60) & (SEGMENTS - 1)];
+    }
+
+    private static final class Segment {
+
+        private final Map<Long, Cart> carts;
+
+        Segment(int maxCarts) {
+            carts = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, Cart> eldest) {
+                    return size() > maxCarts;
+                }
+            };
+        }
+    }
+
+    /**
+     * 장바구니 한 개, 상품 id → 수량 (담은 순서)
+     */
+    static final class Cart {
+
+        private final int maxLines;
+        private final Map<Long, Integer> lines = new LinkedHashMap<>();
+        private long lastAccessed; // segment 락
+
+        Cart(int maxLines) {
+            this.maxLines = maxLines;
+        }
+
+        synchronized void add(Long itemId, int count) {
+            checkLines(itemId);
+            lines.merge(itemId, count, Integer::sum);
+        }
+
+        synchronized void set(Long itemId, int count) {
+            checkLines(itemId);
+            lines.put(itemId, count);
+        }
+
+        synchronized void remove(Long itemId) {
+            lines.remove(itemId);
+        }
+
+        synchronized Map<Long, Integer> lines() {
+            return new LinkedHashMap<>(lines);
+        }
+
+        /**
+         * 담긴 상품을 모두 꺼내고 비운다, 같은 회원의 동시 주문은 둘 중 하나만 상품을 받는다
+         */
+        synchronized Map<Long, Integer> drain() {
+            Map<Long, Integer> drained = new LinkedHashMap<>(lines);
+            lines.clear();
+            return drained;
+        }
+
+        /**
+         * 주문에 실패한 상품을 되돌려 놓는다, 그 사이 더 담은 수량에 더한다 (개수 제한은 보지 않는다)
+         */
+        synchronized void restore(Map<Long, Integer> drained) {
+            drained.forEach((itemId, count) -> lines.merge(itemId, count, Integer::sum));
+        }
+
+        private void checkLines(Long itemId) {
+            if (!lines.containsKey(itemId) && lines.size() >= maxLines) {
+                throw new IllegalStateException("장바구니에는 상품을 " + maxLines + "개까지 담을 수 있습니다");
+            }
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.repository.DeliveryRepository;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * 배송 묶음(route batch) 인덱스
+ * 주문 상태이고 배송 준비(READY) 중인 배송을 우편번호 앞자리(지역)별로 모아 두고, 지역 안에서 우편번호 순으로 batch-size 씩 묶는다
+ * 주문/취소/배송 상태 변경 시 커밋 이후에 인덱스를 고치고, 묶음은 바뀐 지역만 다음 조회 때 다시 나눈다
+ * DeliveryStatusCounter 와 같이 어긋날 수 있으므로 주기적으로 DB 기준으로 다시 만든다
+ */
+@Slf4j
+@Component
+@Lazy(false) // @Scheduled 는 빈이 만들어져야 등록되므로 lazy-initialization 에서 제외
+public class DeliveryBatcher {
+
+    public static final String UNKNOWN_REGION = "-";
+
+    private static final Comparator<Stop> STOP_ORDER =
+            Comparator.comparing(Stop::getZipcode).thenComparing(Stop::getDeliveryId);
+
+    private final DeliveryRepository deliveryRepository;
+    private final int batchSize;
+    private final int prefixLength;
+
+    // synchronized (this)
+    private final Map<String, NavigableSet<Stop>> regions = new TreeMap<>();
+    private final Map<Long, Stop> byDelivery = new HashMap<>();
+    private final Map<Long, Stop> byOrder = new HashMap<>();
+    private final Map<String, List<Batch>> batches = new HashMap<>(); // 바뀌지 않은 지역의 묶음
+
+    public DeliveryBatcher(DeliveryRepository deliveryRepository,
+                           @Value("${jpashop.delivery.batch-size:20}") int batchSize,
+                           @Value("${jpashop.delivery.zipcode-prefix-length:3}") int prefixLength) {
+        if (batchSize <= 0 || prefixLength <= 0) {
+            throw new IllegalArgumentException("batch-size, zipcode-prefix-length 는 1 이상이어야 합니다");
+        }
+        this.deliveryRepository = deliveryRepository;
+        this.batchSize = batchSize;
+        this.prefixLength = prefixLength;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * 주문으로 배송이 만들어짐
+     */
+    public void added(Long deliveryId, Long orderId, String zipcode) {
+        Stop stop = new Stop(deliveryId, orderId, zipcode == null ? "" : zipcode);
+        AfterCommit.run(() -> add(stop));
+    }
+
+    /**
+     * 배송이 READY 에서 다른 상태로 바뀜
+     */
+    public void removedDeliveries(Collection<Long> deliveryIds) {
+        List<Long> ids = new ArrayList<>(deliveryIds);
+        AfterCommit.run(() -> {
+            synchronized (this) {
+                ids.forEach(id -> remove(byDelivery.get(id)));
+            }
+        });
+    }
+
+    /**
+     * 주문이 취소됨
+     */
+    public void removedOrders(Collection<Long> orderIds) {
+        List<Long> ids = new ArrayList<>(orderIds);
+        AfterCommit.run(() -> {
+            synchronized (this) {
+                ids.forEach(id -> remove(byOrder.get(id)));
+            }
+        });
+    }
+
+    /**
+     * @param region null 이면 전체 지역
+     */
+    public synchronized List<Batch> getBatches(String region) {
+        if (region != null) {
+            return batchesOf(region);
+        }
+        List<Batch> result = new ArrayList<>();
+        regions.keySet().forEach(r -> result.addAll(batchesOf(r)));
+        return result;
+    }
+
+    public synchronized int size() {
+        return byDelivery.size();
+    }
+
+    @Transactional(readOnly = true)
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${jpashop.delivery.batch-resync:PT5M}",
+            initialDelayString = "${jpashop.delivery.batch-resync:PT5M}")
+    public void reload() {
+        List<Stop> loaded = new ArrayList<>();
+        deliveryRepository.streamReady(row -> loaded.add(
+                new Stop((Long) row[0], (Long) row[1], row[2] == null ? "" : (String) row[2])));
+
+        synchronized (this) {
+            regions.clear();
+            byDelivery.clear();
+            byOrder.clear();
+            batches.clear();
+            loaded.forEach(this::add);
+        }
+        log.debug("delivery batches reloaded, deliveries={}", loaded.size());
+    }
+
+    private synchronized void add(Stop stop) {
+        remove(byDelivery.get(stop.getDeliveryId()));
+        String region = regionOf(stop.getZipcode());
+        regions.computeIfAbsent(region, r -> new TreeSet<>(STOP_ORDER)).add(stop);
+        byDelivery.put(stop.getDeliveryId(), stop);
+        byOrder.put(stop.getOrderId(), stop);
+        batches.remove(region);
+    }
+
+    private void remove(Stop stop) {
+        if (stop == null) {
+            return;
+        }
+        String region = regionOf(stop.getZipcode());
+        NavigableSet<Stop> stops = regions.get(region);
+        stops.remove(stop);
+        if (stops.isEmpty()) {
+            regions.remove(region);
+        }
+        byDelivery.remove(stop.getDeliveryId());
+        byOrder.remove(stop.getOrderId());
+        batches.remove(region);
+    }
+
+    private List<Batch> batchesOf(String region) {
+        NavigableSet<Stop> stops = regions.get(region);
+        if (stops == null) {
+            return Collections.emptyList();
+        }
+        return batches.computeIfAbsent(region, r -> {
+            List<Batch> result = new ArrayList<>();
+            List<Stop> current = new ArrayList<>(batchSize);
+            for (Stop stop : stops) {
+                current.add(stop);
+                if (current.size() == batchSize) {
+                    result.add(new Batch(r, result.size() + 1, List.copyOf(current)));
+                    current.clear();
+                }
+            }
+            if (!current.isEmpty()) {
+                result.add(new Batch(r, result.size() + 1, List.copyOf(current)));
+            }
+            return Collections.unmodifiableList(result);
+        });
+    }
+
+    private String regionOf(String zipcode) {
+        if (zipcode.isEmpty()) {
+            return UNKNOWN_REGION;
+        }
+        return zipcode.length() <= prefixLength ? zipcode : zipcode.substring(0, prefixLength);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Stop {
+        private Long deliveryId;
+        private Long orderId;
+        private String zipcode;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Batch {
+        private String region;
+        private int sequence; // 지역 안에서 1부터
+        private List<Stop> deliveries;
+    }
+}
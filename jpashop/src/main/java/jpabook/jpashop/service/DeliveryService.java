@@ -0,0 +1,69 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.DeliveryStatus;
+import jpabook.jpashop.exception.NotFoundException;
+import jpabook.jpashop.repository.DeliveryRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class DeliveryService {
+
+    private final DeliveryRepository deliveryRepository;
+    private final DeliveryStatusCounter deliveryStatusCounter;
+    private final DeliveryBatcher deliveryBatcher;
+
+    @Value("${jpashop.delivery.bulk-chunk-size:1000}")
+    private int chunkSize;
+
+    @Transactional
+    public void changeStatus(Long deliveryId, DeliveryStatus next) {
+        Delivery delivery = deliveryRepository.findOne(deliveryId);
+        if (delivery == null) {
+            throw new NotFoundException("배송이 없습니다. deliveryId=" + deliveryId);
+        }
+        DeliveryStatus from = delivery.getStatus();
+
+        delivery.changeStatus(next); // dirty checking
+        deliveryStatusCounter.changed(from, next, 1);
+        if (from == DeliveryStatus.READY) {
+            deliveryBatcher.removedDeliveries(List.of(deliveryId));
+        }
+    }
+
+    /**
+     * 대량 상태 변경
+     * 엔티티를 하나씩 조회하지 않고 chunk 단위 벌크 update 로 처리한다
+     * 전이할 수 없는 상태의 배송이나 존재하지 않는 id는 건너뛴다
+     *
+     * @return 실제로 변경된 건수
+     */
+    @Transactional
+    public int changeStatusAll(Collection<Long> deliveryIds, DeliveryStatus next) {
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(deliveryIds));
+
+        int updated = 0;
+        for (DeliveryStatus from : DeliveryStatus.changeableTo(next)) {
+            for (int i = 0; i < ids.size(); i += chunkSize) {
+                List<Long> chunk = ids.subList(i, Math.min(i + chunkSize, ids.size()));
+                int count = deliveryRepository.updateStatus(chunk, from, next);
+                deliveryStatusCounter.changed(from, next, count);
+                if (from == DeliveryStatus.READY && count > 0) {
+                    deliveryBatcher.removedDeliveries(chunk); // chunk 중 READY 였던 배송은 모두 변경되었다
+                }
+                updated += count;
+            }
+        }
+        return updated;
+    }
+}
@@ -0,0 +1,64 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.DeliveryStatus;
+import jpabook.jpashop.repository.DeliveryRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 배송 상태별 건수 캐시
+ * 대시보드가 매번 count(*) 하지 않도록 상태 변경 시 커밋 이후에 증감한다
+ * 아카이브 등으로 어긋날 수 있기 때문에 주기적으로 DB 기준으로 다시 맞춘다
+ */
+@Component
+@Lazy(false) // @Scheduled 는 빈이 만들어져야 등록되므로 lazy-initialization 에서 제외
+@RequiredArgsConstructor
+public class DeliveryStatusCounter {
+
+    private final DeliveryRepository deliveryRepository;
+    private final Map<DeliveryStatus, AtomicLong> counts = initCounts();
+
+    public Map<DeliveryStatus, Long> getCounts() {
+        Map<DeliveryStatus, Long> result = new EnumMap<>(DeliveryStatus.class);
+        counts.forEach((status, count) -> result.put(status, count.get()));
+        return result;
+    }
+
+    public void created(DeliveryStatus status, long count) {
+        AfterCommit.run(() -> counts.get(status).addAndGet(count));
+    }
+
+    public void changed(DeliveryStatus from, DeliveryStatus to, long count) {
+        if (count == 0) {
+            return;
+        }
+        AfterCommit.run(() -> {
+            counts.get(from).addAndGet(-count);
+            counts.get(to).addAndGet(count);
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${jpashop.delivery.counter-resync:PT5M}",
+            initialDelayString = "${jpashop.delivery.counter-resync:PT5M}")
+    public void reload() {
+        Map<DeliveryStatus, Long> loaded = deliveryRepository.countByStatus();
+        counts.forEach((status, count) -> count.set(loaded.getOrDefault(status, 0L)));
+    }
+
+    private static Map<DeliveryStatus, AtomicLong> initCounts() {
+        Map<DeliveryStatus, AtomicLong> counts = new EnumMap<>(DeliveryStatus.class);
+        for (DeliveryStatus status : DeliveryStatus.values()) {
+            counts.put(status, new AtomicLong());
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,251 @@
+package jpabook.jpashop.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.function.Consumer;
+
+/**
+ * id 별 만료 타이머 (hashed timing wheel)
+ * tick 간격의 버킷 wheelSize 개를 원형으로 두고, 만료 시각이 속한 버킷의 연결 리스트에 넣는다
+ * 한 바퀴보다 먼 만료는 남은 바퀴 수(rounds)를 들고 있다가 0 이 되는 바퀴에서 만료된다
+ *
+ * 등록/취소는 큐에 넣기만 하므로 O(1) 이고, 실제 버킷 반영은 worker 스레드 하나가 tick 마다 한다
+ * 대기 중인 타이머 수와 상관없이 tick 마다 버킷 하나만 본다 (정렬/힙 없음)
+ * 만료는 tick 단위로 늦게(최대 tick 만큼) 알린다
+ *
+ * 만료된 id 는 tick 마다 묶어서 handler 에 넘긴다. handler 는 worker 스레드에서 실행되므로 오래 걸리는 일은 다른 스레드로 넘겨야 한다
+ */
+@Slf4j
+class HashedWheelTimer {
+
+    // tick 하나에 버킷으로 옮기는 최대 등록 수, 등록이 몰려도 tick 이 밀리지 않도록
+    private static final int MAX_TRANSFERS_PER_TICK = 100_000;
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Consumer<List<Long>> handler;
+
+    private final Map<Long, Timeout> timeouts = new ConcurrentHashMap<>();
+    private final Queue<Timeout> pendingAdds = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> pendingCancels = new ConcurrentLinkedQueue<>();
+
+    private final Thread worker;
+    private final long startNanos;
+    private volatile boolean running = true;
+    private long tick; // worker
+
+    HashedWheelTimer(long tickNanos, int wheelSize, ThreadFactory threadFactory, Consumer<List<Long>> handler) {
+        if (tickNanos <= 0) {
+            throw new IllegalArgumentException("tick 은 0 보다 커야 합니다");
+        }
+        int size = Integer.highestOneBit(Math.max(wheelSize, 2) * 2 - 1);
+        this.tickNanos = tickNanos;
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+        this.handler = handler;
+        this.startNanos = System.nanoTime();
+        this.worker = threadFactory.newThread(this::run);
+        this.worker.start();
+    }
+
+    /**
+     * 같은 id 가 이미 등록되어 있으면 새 만료 시각으로 바꾼다
+     */
+    void schedule(long id, long delayNanos) {
+        Timeout timeout = new Timeout(id, System.nanoTime() + Math.max(delayNanos, 0));
+        Timeout previous = timeouts.put(id, timeout);
+        if (previous != null && previous.cancel()) {
+            pendingCancels.add(previous);
+        }
+        pendingAdds.add(timeout);
+    }
+
+    /**
+     * @return 만료 전에 취소되었으면 true
+     */
+    boolean cancel(long id) {
+        Timeout timeout = timeouts.remove(id);
+        if (timeout == null || !timeout.cancel()) {
+            return false;
+        }
+        pendingCancels.add(timeout);
+        return true;
+    }
+
+    int size() {
+        return timeouts.size();
+    }
+
+    void stop() {
+        running = false;
+        worker.interrupt();
+    }
+
+    private void run() {
+        while (running) {
+            long now = waitForNextTick();
+            if (now < 0) {
+                break;
+            }
+            removeCancelled();
+            transferPending();
+
+            List<Long> expired = wheel[(int) (tick & mask)].expire(now);
+            tick++;
+            if (expired.isEmpty()) {
+                continue;
+            }
+            try {
+                handler.accept(expired);
+            } catch (RuntimeException e) {
+                log.error("timer handler failed, {} ids", expired.size(), e);
+            }
+        }
+    }
+
+    /**
+     * @return 현재 시각(startNanos 기준), 중지되면 -1
+     */
+    private long waitForNextTick() {
+        long deadline = tickNanos * (tick + 1);
+        while (true) {
+            long now = System.nanoTime() - startNanos;
+            long sleepNanos = deadline - now;
+            if (sleepNanos <= 0) {
+                return now;
+            }
+            try {
+                TimeUnit.NANOSECONDS.sleep(sleepNanos);
+            } catch (InterruptedException e) {
+                if (!running) {
+                    return -1;
+                }
+            }
+        }
+    }
+
+    private void removeCancelled() {
+        Timeout timeout;
+        while ((timeout = pendingCancels.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    private void transferPending() {
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+            Timeout timeout = pendingAdds.poll();
+            if (timeout == null) {
+                return;
+            }
+            if (timeout.state != Timeout.PENDING) {
+                continue;
+            }
+            long expireTick = (timeout.deadline - startNanos) / tickNanos;
+            timeout.rounds = (expireTick - tick) / wheel.length;
+            // 이미 지난 만료는 이번 tick 에서
+            wheel[(int) (Math.max(expireTick, tick) & mask)].add(timeout);
+        }
+    }
+
+    private final class Bucket {
+
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        List<Long> expire(long now) {
+            List<Long> expired = new ArrayList<>();
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.rounds <= 0) {
+                    remove(timeout);
+                    if (timeout.expire()) {
+                        timeouts.remove(timeout.id, timeout);
+                        expired.add(timeout.id);
+                    }
+                } else {
+                    timeout.rounds--;
+                }
+                timeout = next;
+            }
+            return expired;
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.bucket != this) {
+                return;
+            }
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            } else {
+                tail = timeout.prev;
+            }
+            timeout.prev = timeout.next = null;
+            timeout.bucket = null;
+        }
+    }
+
+    private static final class Timeout {
+
+        static final int PENDING = 0;
+        static final int CANCELLED = 1;
+        static final int EXPIRED = 2;
+
+        private static final AtomicIntegerFieldUpdater<Timeout> STATE =
+                AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+        final long id;
+        final long deadline;
+        volatile int state = PENDING;
+
+        // worker
+        long rounds;
+        Bucket bucket;
+        Timeout prev;
+        Timeout next;
+
+        Timeout(long id, long deadline) {
+            this.id = id;
+            this.deadline = deadline;
+        }
+
+        boolean cancel() {
+            return STATE.compareAndSet(this, PENDING, CANCELLED);
+        }
+
+        boolean expire() {
+            return STATE.compareAndSet(this, PENDING, EXPIRED);
+        }
+    }
+}
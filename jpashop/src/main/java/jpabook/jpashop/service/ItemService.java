@@ -1,9 +1,11 @@
 package jpabook.jpashop.service;
 
+import jpabook.jpashop.domain.StockChangeReason;
 import jpabook.jpashop.domain.item.Book;
 import jpabook.jpashop.domain.item.Item;
 import jpabook.jpashop.repository.ItemRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -15,18 +17,55 @@ import java.util.List;
 public class ItemService {
 
     private final ItemRepository itemRepository;
+    private final StockLedger stockLedger;
+    private final LowStockWatermarks lowStockWatermarks;
+    private final PriceHistory priceHistory;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public void saveItem(Item item) {
-        itemRepository.save(item);
+        if (item.getId() == null) {
+            itemRepository.save(item);
+            stockLedger.record(item.getId(), item.getStockQuantity(), StockChangeReason.RECEIVE, null);
+            priceHistory.record(item.getId(), item.getPrice());
+            lowStockWatermarks.update(item.getId(), item.getLowStockThreshold());
+        } else {
+            Item current = itemRepository.findForUpdate(item.getId()); // 동시 주문의 차감을 덮어쓰지 않도록 행 락
+            int before = current.getStockQuantity();
+            int beforePrice = current.getPrice();
+            itemRepository.save(item);
+            if (item.getPrice() != beforePrice) {
+                priceHistory.record(item.getId(), item.getPrice());
+            }
+            adjusted(item.getId(), before, item.getStockQuantity(), item.getLowStockThreshold());
+        }
+        eventPublisher.publishEvent(new AggregateChangedEvent(Aggregate.ITEM));
     }
 
     @Transactional
     public void updateItem(Long itemId, Book book) {
-        Item findItem = itemRepository.findOne(itemId); // 영속화
+        Item findItem = itemRepository.findForUpdate(itemId); // 영속화, 동시 주문의 차감을 덮어쓰지 않도록 행 락
+        int before = findItem.getStockQuantity();
+        if (findItem.getPrice() != book.getPrice()) {
+            priceHistory.record(itemId, book.getPrice());
+        }
 
         findItem.setPrice(book.getPrice()); // dirty checking
         findItem.setStockQuantity(book.getStockQuantity());
+        findItem.setLowStockThreshold(book.getLowStockThreshold());
+        adjusted(itemId, before, book.getStockQuantity(), book.getLowStockThreshold());
+        eventPublisher.publishEvent(new AggregateChangedEvent(Aggregate.ITEM));
+    }
+
+    /**
+     * 재고를 직접 고친 만큼 원장(ADJUST)과 재고 알림 기준에 반영한다
+     * before 는 행 락을 잡고 읽은 값이어야 한다, 락 없이 읽으면 그 사이 커밋된 주문 차감이 원장에는 ORDER 와 ADJUST 로
+     * 두번 들어가서 StockSnapshotService.verify 가 불일치로 본다
+     */
+    private void adjusted(Long itemId, int before, int after, int lowStockThreshold) {
+        stockLedger.record(itemId, after - before, StockChangeReason.ADJUST, null);
+        lowStockWatermarks.update(itemId, lowStockThreshold);
+        lowStockWatermarks.changed(itemId, before, after);
     }
 
     public List<Item> findItems() {
@@ -36,4 +75,8 @@ public class ItemService {
     public Item findOne(Long itemId) {
         return itemRepository.findOne(itemId);
     }
+
+    public <T extends Item> T findOne(Class<T> type, Long itemId) {
+        return itemRepository.findOne(type, itemId);
+    }
 }
@@ -0,0 +1,95 @@
+package jpabook.jpashop.service;
+
+/**
+ * long → int 해시 맵 (open addressing, linear probing)
+ * 상품 수만큼의 Long/Integer 박싱과 Entry 객체 없이 배열 두개로 재고를 누적한다
+ */
+class LongIntMap {
+
+    @FunctionalInterface
+    interface Visitor {
+        void visit(long key, int value);
+    }
+
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+    private int[] values;
+    private boolean[] used;
+    private int size;
+
+    LongIntMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max((int) (expectedSize / LOAD_FACTOR), 16) * 2 - 1);
+        keys = new long[capacity];
+        values = new int[capacity];
+        used = new boolean[capacity];
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean containsKey(long key) {
+        return used[indexOf(key)];
+    }
+
+    int get(long key) {
+        int index = indexOf(key);
+        return used[index] ? values[index] : 0;
+    }
+
+    void add(long key, int delta) {
+        int index = indexOf(key);
+        if (used[index]) {
+            values[index] += delta;
+            return;
+        }
+        keys[index] = key;
+        values[index] = delta;
+        used[index] = true;
+        if (++size > keys.length * LOAD_FACTOR) {
+            resize();
+        }
+    }
+
+    void forEach(Visitor visitor) {
+        for (int i = 0; i < keys.length; i++) {
+            if (used[i]) {
+                visitor.visit(keys[i], values[i]);
+            }
+        }
+    }
+
+    private int indexOf(long key) {
+        int mask = keys.length - 1;
+        int index = hash(key) & mask;
+        while (used[index] && keys[index] != key) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        boolean[] oldUsed = used;
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldKeys.length * 2];
+        used = new boolean[oldKeys.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                int index = indexOf(oldKeys[i]);
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+                used[index] = true;
+            }
+        }
+    }
+
+    private static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+}
@@ -0,0 +1,43 @@
+package jpabook.jpashop.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * 재고 부족 알림, 커밋된 LowStockEvent 를 로그로 남기고 최근 것을 들고 있는다
+ */
+@Slf4j
+@Component
+public class LowStockAlerts {
+
+    private static final int MAX_RECENT = 100;
+
+    private final Deque<LowStockEvent> recent = new ArrayDeque<>();
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLowStock(LowStockEvent event) {
+        log.warn("low stock: itemId={}, stockQuantity={}, threshold={}",
+                event.getItemId(), event.getStockQuantity(), event.getThreshold());
+        synchronized (recent) {
+            recent.addFirst(event);
+            if (recent.size() > MAX_RECENT) {
+                recent.removeLast();
+            }
+        }
+    }
+
+    /**
+     * 최근 알림, 최신순
+     */
+    public List<LowStockEvent> getRecent() {
+        synchronized (recent) {
+            return new ArrayList<>(recent);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package jpabook.jpashop.service;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * 상품 재고가 알림 기준(Item.lowStockThreshold) 아래로 내려갔음을 알리는 이벤트
+ * 기준을 넘어 내려가는 순간에 한번만 발행되고, 이미 기준 아래에서 더 줄어드는 것은 알리지 않는다
+ * 리스너는 트랜잭션 커밋 이후에 처리한다 (@TransactionalEventListener)
+ */
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class LowStockEvent {
+
+    private final Long itemId;
+    private final int threshold;
+    private final int stockQuantity;
+}
@@ -0,0 +1,68 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.repository.ItemRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 상품별 재고 알림 기준
+ * 기준은 메모리에 들고 있다가 재고를 바꾸는 곳에서 변경 전/후 재고로 기준을 넘었는지 확인한다 (item 테이블을 주기적으로 조회하지 않는다)
+ * 기준이 없는 상품은 맵 조회 한번으로 끝나고, 있는 상품만 조건부 update 이후 재고를 한번 더 읽는다
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LowStockWatermarks {
+
+    private final ItemRepository itemRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Map<Long, Integer> thresholds = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reload() {
+        thresholds.clear();
+        for (Object[] row : itemRepository.findLowStockThresholds()) {
+            thresholds.put((Long) row[0], (Integer) row[1]);
+        }
+        log.info("low stock thresholds loaded, size={}", thresholds.size());
+    }
+
+    /**
+     * 상품 등록/수정 시 기준 반영, 0 이하이면 알리지 않는다
+     */
+    public void update(Long itemId, int threshold) {
+        if (threshold > 0) {
+            thresholds.put(itemId, threshold);
+        } else {
+            thresholds.remove(itemId);
+        }
+    }
+
+    /**
+     * ItemRepository.removeStock 으로 차감한 직후 (같은 트랜잭션)
+     */
+    public void removed(Long itemId, int quantity) {
+        if (!thresholds.containsKey(itemId)) {
+            return;
+        }
+        Integer after = itemRepository.findStockQuantity(itemId);
+        if (after != null) {
+            changed(itemId, after + quantity, after);
+        }
+    }
+
+    public void changed(Long itemId, int before, int after) {
+        Integer threshold = thresholds.get(itemId);
+        if (threshold != null && before >= threshold && after < threshold) {
+            eventPublisher.publishEvent(new LowStockEvent(itemId, threshold, after));
+        }
+    }
+}
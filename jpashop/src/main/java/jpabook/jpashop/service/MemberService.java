@@ -1,9 +1,11 @@
 package jpabook.jpashop.service;
 
 import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.repository.AddressRepository;
 import jpabook.jpashop.repository.MemberRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -16,12 +18,16 @@ import java.util.List;
 public class MemberService {
 
     private final MemberRepository memberRepository;
+    private final AddressRepository addressRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     //회원 가입
     @Transactional
     public Long join(Member member) {
         validateDuplicateMember(member);
+        member.setAddress(addressRepository.save(member.getAddress()));
         memberRepository.save(member);
+        eventPublisher.publishEvent(new AggregateChangedEvent(Aggregate.MEMBER));
         return member.getId();
     }
 
@@ -46,5 +52,6 @@ public class MemberService {
     public void update(Long id, String name) {
         Member member = memberRepository.findById(id).get();
         member.setName(name);
+        eventPublisher.publishEvent(new AggregateChangedEvent(Aggregate.MEMBER));
     }
 }
@@ -0,0 +1,68 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.repository.OrderArchiveRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 오래된 완료/취소 주문을 아카이브 테이블로 옮긴다
+ * 배치 단위로 트랜잭션을 나눠서 한번에 큰 락을 잡지 않는다
+ */
+@Slf4j
+@Service
+@Lazy(false) // @Scheduled 는 빈이 만들어져야 등록되므로 lazy-initialization 에서 제외
+@RequiredArgsConstructor
+public class OrderArchiveService {
+
+    private final OrderArchiveRepository orderArchiveRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final DeliveryStatusCounter deliveryStatusCounter;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${jpashop.archive.older-than:90d}")
+    private Duration olderThan;
+
+    @Value("${jpashop.archive.batch-size:500}")
+    private int batchSize;
+
+    // cron을 "-"로 설정하면 비활성화
+    @Scheduled(cron = "${jpashop.archive.cron:0 0 4 * * *}")
+    public void scheduledArchive() {
+        archive();
+    }
+
+    public int archive() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime before = now.minus(olderThan);
+
+        int total = 0;
+        int moved;
+        do {
+            moved = transactionTemplate.execute(status -> {
+                List<Long> orderIds = orderArchiveRepository.findArchivableIds(before, batchSize);
+                if (orderIds.isEmpty()) {
+                    return 0;
+                }
+                return orderArchiveRepository.moveToArchive(orderIds, now);
+            });
+            total += moved;
+        } while (moved == batchSize);
+
+        if (total > 0) {
+            deliveryStatusCounter.reload(); // 아카이브된 배송은 delivery 테이블에서 삭제된다
+            eventPublisher.publishEvent(new AggregateChangedEvent(Aggregate.ORDER));
+        }
+        log.info("archived {} orders placed before {}", total, before);
+        return total;
+    }
+}
@@ -1,58 +1,303 @@
 package jpabook.jpashop.service;
 
+import jpabook.jpashop.domain.ArchivedOrder;
 import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.DeliveryStatus;
+import jpabook.jpashop.domain.IdempotencyKey;
 import jpabook.jpashop.domain.Member;
 import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.domain.Reservation;
+import jpabook.jpashop.domain.StockChangeReason;
 import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.exception.ConflictException;
+import jpabook.jpashop.exception.NotEnoughStockException;
+import jpabook.jpashop.exception.NotFoundException;
+import jpabook.jpashop.repository.IdempotencyKeyRepository;
+import jpabook.jpashop.repository.ItemLoader;
+import jpabook.jpashop.repository.ItemLoader.ItemView;
 import jpabook.jpashop.repository.ItemRepository;
+import jpabook.jpashop.repository.MemberOrderStatsRepository;
 import jpabook.jpashop.repository.MemberRepository;
 import jpabook.jpashop.repository.OrderRepository;
 import jpabook.jpashop.repository.OrderSearch;
+import jpabook.jpashop.repository.ReservationRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.List;
+import java.util.*;
 
 @Service
 @Transactional(readOnly = true)
 @RequiredArgsConstructor
 public class OrderService {
 
+    private static final int IN_QUERY_CHUNK_SIZE = 1000;
+
     private final OrderRepository orderRepository;
     private final MemberRepository memberRepository;
+    private final MemberOrderStatsRepository memberOrderStatsRepository;
     private final ItemRepository itemRepository;
+    private final ItemLoader itemLoader;
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final RecentIdempotencyKeys recentIdempotencyKeys;
+    private final ReservationRepository reservationRepository;
+    private final ReservationService reservationService;
+    private final StockLedger stockLedger;
+    private final LowStockWatermarks lowStockWatermarks;
+    private final DeliveryStatusCounter deliveryStatusCounter;
+    private final DeliveryBatcher deliveryBatcher;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
 
-    @Transactional
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Long order(Long memberId, Long itemId, int count) {
+        return order(memberId, itemId, count, null);
+    }
+
+    /**
+     * 상품 가격/이름은 트랜잭션(커넥션)을 시작하기 전에 ItemLoader 로 읽는다
+     * 같은 상품에 주문이 몰리면 조회가 한번으로 합쳐지고, 커넥션을 잡은 채로 다른 요청의 조회를 기다리지 않는다
+     * 재고는 상품 엔티티를 읽지 않고 조건부 update 로 차감한다
+     * 이미 트랜잭션 안에서 호출하면 그 트랜잭션에 참여한다
+     *
+     * idempotencyKey 가 있으면 같은 키의 재시도에는 새 주문 대신 처음 주문 id 를 돌려준다
+     * 1. 최근 키(RecentIdempotencyKeys)에 있으면 트랜잭션 없이 바로
+     * 2. 없으면 주문과 함께 키를 저장하다가 중복이면 롤백(재고 차감 포함)하고 저장된 키로
+     * 중복 키의 롤백이 호출한 쪽 트랜잭션까지 rollback-only 로 만들지 않도록 키가 있는 주문은 항상 새 트랜잭션에서 실행한다
+     * 같은 키를 다른 주문 요청에 쓰면 ConflictException(409)
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Long order(Long memberId, Long itemId, int count, String idempotencyKey) {
+        if (idempotencyKey != null) {
+            if (idempotencyKey.isEmpty() || idempotencyKey.length() > IdempotencyKey.MAX_LENGTH) {
+                throw new IllegalArgumentException("멱등키는 1~" + IdempotencyKey.MAX_LENGTH + "자여야 합니다");
+            }
+            IdempotencyKey recent = recentIdempotencyKeys.get(idempotencyKey);
+            if (recent != null) {
+                return recent.replay(memberId, itemId, count);
+            }
+        }
+
+        ItemView item = itemLoader.load(itemId);
+        if (item == null) {
+            throw new IllegalArgumentException("상품이 없습니다. itemId=" + itemId);
+        }
+
+        try {
+            TransactionTemplate template = idempotencyKey == null ? transactionTemplate : requiresNew();
+            Long orderId = template.execute(status -> placeOrder(memberId, item, count, idempotencyKey));
+            if (idempotencyKey != null) {
+                recentIdempotencyKeys.put(new IdempotencyKey(idempotencyKey, memberId, itemId, count, orderId));
+            }
+            return orderId;
+        } catch (DataIntegrityViolationException e) {
+            IdempotencyKey existing = idempotencyKey == null ? null : idempotencyKeyRepository.find(idempotencyKey);
+            if (existing == null) {
+                throw e;
+            }
+            recentIdempotencyKeys.put(existing);
+            return existing.replay(memberId, itemId, count);
+        }
+    }
+
+    private TransactionTemplate requiresNew() {
+        TransactionTemplate template = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return template;
+    }
+
+    private Long placeOrder(Long memberId, ItemView item, int count, String idempotencyKey) {
         // 엔티티 조회
         Member member = memberRepository.findById(memberId).get();
-        Item item = itemRepository.findOne(itemId);
 
+        // 재고 차감
+        if (!itemRepository.removeStock(item.getId(), count)) {
+            throw new NotEnoughStockException("재고가 부족합니다");
+        }
+
+        lowStockWatermarks.removed(item.getId(), count);
+
+        Order order = saveOrder(member, OrderItem.createOrderItemWithoutStock(
+                itemRepository.getReference(item.getId()), item.getPrice(), count));
+        if (idempotencyKey != null) {
+            idempotencyKeyRepository.save(new IdempotencyKey(idempotencyKey, memberId, item.getId(), count, order.getId()));
+        }
+        stockLedger.record(item.getId(), -count, StockChangeReason.ORDER, order.getId());
+
+        return order.getId();
+    }
+
+    /**
+     * 예약(ReservationService.reserve)을 주문으로 확정
+     * 재고는 예약할 때 이미 차감했으므로 바꾸지 않고, 가격은 예약 시점의 가격이다
+     */
+    @Transactional
+    public Long orderReservation(Long reservationId, Long memberId) {
+        Reservation reservation = reservationRepository.findForUpdate(reservationId);
+        if (reservation == null || !reservation.getMemberId().equals(memberId)) {
+            throw new NotFoundException("예약이 없습니다. reservationId=" + reservationId);
+        }
+        Member member = memberRepository.findById(memberId).get();
+
+        Order order = saveOrder(member, OrderItem.createOrderItemWithoutStock(
+                itemRepository.getReference(reservation.getItemId()), reservation.getPrice(), reservation.getCount()));
+        reservation.confirm(order.getId());
+        reservationService.unschedule(reservationId);
+
+        return order.getId();
+    }
+
+    /**
+     * 장바구니 주문, 여러 상품을 주문 하나로 (CartService.checkout)
+     * 상품들은 한번의 쿼리로 행 락을 잡고 조회한 뒤 엔티티로 재고를 차감한다
+     * 한 상품이라도 재고가 부족하면 전체가 롤백된다
+     *
+     * @param counts 상품 id → 수량
+     */
+    @Transactional
+    public Long orderCart(Long memberId, Map<Long, Integer> counts) {
+        if (counts.isEmpty()) {
+            throw new IllegalStateException("장바구니가 비어 있습니다");
+        }
+        Member member = memberRepository.findById(memberId)
+                .orElseThrow(() -> new IllegalArgumentException("회원이 없습니다. memberId=" + memberId));
+
+        List<Item> items = itemRepository.findAllForUpdate(counts.keySet());
+        if (items.size() != counts.size()) {
+            throw new IllegalArgumentException("없는 상품이 있습니다. itemIds=" + counts.keySet());
+        }
+
+        OrderItem[] orderItems = new OrderItem[items.size()];
+        for (int i = 0; i < items.size(); i++) {
+            Item item = items.get(i);
+            int before = item.getStockQuantity();
+            orderItems[i] = OrderItem.createOrderItem(item, item.getPrice(), counts.get(item.getId()));
+            lowStockWatermarks.changed(item.getId(), before, item.getStockQuantity());
+        }
+
+        Order order = saveOrder(member, orderItems);
+        stockLedger.recordOrdered(order);
+        return order.getId();
+    }
+
+    /**
+     * 재고는 차감된 상태에서 주문, 배송 생성 및 저장
+     */
+    private Order saveOrder(Member member, OrderItem... orderItems) {
         // 배송정보 생성
         Delivery delivery = new Delivery();
         delivery.setAddress(member.getAddress());
 
-        // 주문상품 생성
-        OrderItem orderItem = OrderItem.createOrderItem(item, item.getPrice(), count);
-
         // 주문 생성
-        Order order = Order.createOrder(member, delivery, orderItem);
+        Order order = Order.createOrder(member, delivery, orderItems);
 
         // 주문 저장
         orderRepository.save(order); // cascade 덕분에 orderItem 및 delivery를 따로 persist 하지 않아도된다
-
-        return order.getId();
+        memberOrderStatsRepository.add(member.getId(), 1, order.getTotalPrice());
+        deliveryStatusCounter.created(DeliveryStatus.READY, 1);
+        deliveryBatcher.added(delivery.getId(), order.getId(),
+                member.getAddress() == null ? null : member.getAddress().getZipcode());
+        eventPublisher.publishEvent(new AggregateChangedEvent(Aggregate.ORDER));
+        return order;
     }
 
     @Transactional
     public void cancel(Long orderId) {
         Order order = orderRepository.findOrder(orderId);
         order.cancel();
+        Map<Long, Integer> stocks = new HashMap<>();
+        for (OrderItem orderItem : order.getOrderItems()) {
+            stocks.merge(orderItem.getItem().getId(), orderItem.getCount(), Integer::sum);
+        }
+        itemRepository.addStockAll(stocks);
+        stockLedger.recordCanceled(order);
+        memberOrderStatsRepository.add(order.getMember().getId(), -1, -order.getTotalPrice());
+        deliveryBatcher.removedOrders(List.of(orderId));
+        eventPublisher.publishEvent(new AggregateChangedEvent(Aggregate.ORDER));
+    }
+
+    /**
+     * 대량 주문 취소
+     * 주문을 하나씩 조회해서 취소하지 않고
+     * 1. 배송 상태 검증을 한번의 쿼리로
+     * 2. 주문 상태를 벌크 update로
+     * 3. 재고는 상품별로, 회원 주문 통계는 회원별로 합산해서 한번씩 update (JDBC batch), 재고 원장은 insert ... select
+     * 처리한다. 이미 취소된 주문은 건너뛴다
+     *
+     * @return 취소된 주문 수
+     */
+    @Transactional
+    public int cancelAll(Collection<Long> orderIds) {
+        List<List<Long>> chunks = chunk(new ArrayList<>(new LinkedHashSet<>(orderIds)));
+
+        List<List<Long>> targets = new ArrayList<>();
+        for (List<Long> chunk : chunks) {
+            List<Long> target = new ArrayList<>();
+            for (Object[] row : orderRepository.findCancelTargets(chunk)) {
+                if (row[1] == DeliveryStatus.COMP) {
+                    throw new ConflictException("이미 배송이 완료되었습니다. orderId=" + row[0]);
+                }
+                target.add((Long) row[0]);
+            }
+            if (!target.isEmpty()) {
+                targets.add(target);
+            }
+        }
+
+        int canceled = 0;
+        Map<Long, Integer> stocks = new HashMap<>();
+        Map<Long, long[]> memberStats = new HashMap<>();
+        for (List<Long> target : targets) {
+            // 검증 이후 다른 트랜잭션이 먼저 취소했거나 배송을 완료했다면 재고가 잘못 복구되지 않도록 롤백한다
+            if (orderRepository.cancelAll(target) != target.size()) {
+                throw new ConflictException("주문 또는 배송 상태가 변경되었습니다. 다시 시도해주세요");
+            }
+            canceled += target.size();
+            stockLedger.recordCanceled(target);
+            deliveryBatcher.removedOrders(target);
+
+            for (Object[] row : orderRepository.sumCountByItem(target)) {
+                stocks.merge((Long) row[0], ((Long) row[1]).intValue(), Integer::sum);
+            }
+            for (Object[] row : memberOrderStatsRepository.sumByMember(target)) {
+                long[] stat = memberStats.computeIfAbsent((Long) row[0], id -> new long[2]);
+                stat[0] -= (Long) row[1];
+                stat[1] -= ((Number) row[2]).longValue();
+            }
+        }
+
+        itemRepository.addStockAll(stocks);
+        memberOrderStatsRepository.addAll(memberStats);
+        if (canceled > 0) {
+            eventPublisher.publishEvent(new AggregateChangedEvent(Aggregate.ORDER));
+        }
+        return canceled;
+    }
+
+    private static List<List<Long>> chunk(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += IN_QUERY_CHUNK_SIZE) {
+            chunks.add(ids.subList(i, Math.min(i + IN_QUERY_CHUNK_SIZE, ids.size())));
+        }
+        return chunks;
     }
 
     public List<Order> findOrders(OrderSearch orderSearch) {
         return orderRepository.findAll(orderSearch);
     }
+
+    public List<ArchivedOrder> findArchivedOrders(OrderSearch orderSearch) {
+        if (!orderSearch.isIncludeArchived()) {
+            return Collections.emptyList();
+        }
+        return orderRepository.findArchived(orderSearch);
+    }
 }
@@ -0,0 +1,187 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.ItemPrice;
+import jpabook.jpashop.repository.ItemPriceRepository;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 상품 가격 이력과 "T 시점 가격" 인덱스 (메모리)
+ * 상품마다 effectiveFrom 오름차순 배열 두개(시각 long[], 가격 int[])를 두고 이진 탐색으로 찾는다
+ * 배열은 바꾸지 않고 변경할 때 복사해서 교체하므로 조회는 락 없이 한다 (가격 변경은 드물다)
+ *
+ * 기동 시 item_price 를 한번 읽어 만들고, 이후 변경(record)은 커밋 이후에 반영한다
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PriceHistory {
+
+    public static final int NO_PRICE = -1;
+
+    private final ItemPriceRepository itemPriceRepository;
+
+    private final Map<Long, PriceSeries> series = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reload() {
+        Map<Long, PriceSeries> loaded = new HashMap<>();
+        SeriesBuilder builder = new SeriesBuilder();
+        itemPriceRepository.streamAll(rs -> {
+            long itemId = rs.getLong(1);
+            if (builder.itemId != itemId && builder.size > 0) {
+                loaded.put(builder.itemId, builder.build());
+            }
+            builder.add(itemId, rs.getTimestamp(3).getTime(), rs.getInt(2));
+        });
+        if (builder.size > 0) {
+            loaded.put(builder.itemId, builder.build());
+        }
+        series.clear();
+        series.putAll(loaded);
+        log.info("price history loaded, items={}", loaded.size());
+    }
+
+    /**
+     * 상품 등록/가격 변경 시 호출 (트랜잭션 안)
+     */
+    public void record(Long itemId, int price) {
+        ItemPrice itemPrice = new ItemPrice(itemId, price, LocalDateTime.now());
+        itemPriceRepository.save(itemPrice);
+        AfterCommit.run(() -> series.compute(itemId, (id, current) -> current == null
+                ? PriceSeries.of(millis(itemPrice.getEffectiveFrom()), price)
+                : current.with(millis(itemPrice.getEffectiveFrom()), price)));
+    }
+
+    /**
+     * @return 이력이 없거나 첫 이력 이전이면 NO_PRICE
+     */
+    public int priceAt(Long itemId, LocalDateTime time) {
+        return priceAt(itemId, millis(time));
+    }
+
+    public int priceAt(Long itemId, long epochMillis) {
+        PriceSeries prices = series.get(itemId);
+        return prices == null ? NO_PRICE : prices.priceAt(epochMillis);
+    }
+
+    public List<PricePoint> findHistory(Long itemId) {
+        PriceSeries prices = series.get(itemId);
+        if (prices == null) {
+            return Collections.emptyList();
+        }
+        List<PricePoint> points = new ArrayList<>(prices.from.length);
+        for (int i = 0; i < prices.from.length; i++) {
+            points.add(new PricePoint(new Timestamp(prices.from[i]).toLocalDateTime(), prices.prices[i]));
+        }
+        return points;
+    }
+
+    static long millis(LocalDateTime time) {
+        return Timestamp.valueOf(time).getTime();
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class PricePoint {
+        private LocalDateTime effectiveFrom;
+        private int price;
+    }
+
+    /**
+     * 한 상품의 가격 구간, from[i] 부터 from[i + 1] 전까지 prices[i]
+     */
+    static final class PriceSeries {
+
+        private final long[] from;
+        private final int[] prices;
+
+        private PriceSeries(long[] from, int[] prices) {
+            this.from = from;
+            this.prices = prices;
+        }
+
+        static PriceSeries of(long from, int price) {
+            return new PriceSeries(new long[]{from}, new int[]{price});
+        }
+
+        /**
+         * 같은 시각이 이미 있으면 그 뒤에 넣는다 (나중에 기록한 가격이 이긴다)
+         */
+        PriceSeries with(long effectiveFrom, int price) {
+            int index = upperBound(effectiveFrom);
+            long[] newFrom = new long[from.length + 1];
+            int[] newPrices = new int[prices.length + 1];
+            System.arraycopy(from, 0, newFrom, 0, index);
+            System.arraycopy(prices, 0, newPrices, 0, index);
+            newFrom[index] = effectiveFrom;
+            newPrices[index] = price;
+            System.arraycopy(from, index, newFrom, index + 1, from.length - index);
+            System.arraycopy(prices, index, newPrices, index + 1, prices.length - index);
+            return new PriceSeries(newFrom, newPrices);
+        }
+
+        int priceAt(long time) {
+            int index = upperBound(time) - 1;
+            return index < 0 ? NO_PRICE : prices[index];
+        }
+
+        /**
+         * time 보다 큰 첫 위치
+         */
+        private int upperBound(long time) {
+            int low = 0;
+            int high = from.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (from[mid] <= time) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    private static final class SeriesBuilder {
+
+        private long itemId;
+        private long[] from = new long[4];
+        private int[] prices = new int[4];
+        private int size;
+
+        void add(long itemId, long effectiveFrom, int price) {
+            if (this.itemId != itemId) {
+                this.itemId = itemId;
+                size = 0;
+            }
+            if (size == from.length) {
+                from = Arrays.copyOf(from, size * 2);
+                prices = Arrays.copyOf(prices, size * 2);
+            }
+            from[size] = effectiveFrom;
+            prices[size] = price;
+            size++;
+        }
+
+        PriceSeries build() {
+            return new PriceSeries(Arrays.copyOf(from, size), Arrays.copyOf(prices, size));
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.IdempotencyKey;
+import jpabook.jpashop.repository.IdempotencyKeyRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 최근 주문 멱등키 LRU
+ * 재시도 요청은 대부분 직후에 오므로 여기서 처음 주문 id 를 바로 돌려주고 트랜잭션을 시작하지 않는다
+ * 없으면(다른 인스턴스, 재시작, LRU 에서 밀려남) idempotency_key 테이블의 PK 가 중복 주문을 막는다
+ */
+@Component
+@Lazy(false) // @Scheduled 는 빈이 만들어져야 등록되므로 lazy-initialization 에서 제외
+@RequiredArgsConstructor
+public class RecentIdempotencyKeys {
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Value("${jpashop.idempotency.cache-size:10000}")
+    private int cacheSize;
+
+    @Value("${jpashop.idempotency.retention:1d}")
+    private Duration retention;
+
+    private final Map<String, IdempotencyKey> recent = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, IdempotencyKey> eldest) {
+            return size() > cacheSize;
+        }
+    };
+
+    public synchronized IdempotencyKey get(String key) {
+        return recent.get(key);
+    }
+
+    public synchronized void put(IdempotencyKey idempotencyKey) {
+        recent.put(idempotencyKey.getKey(), idempotencyKey);
+    }
+
+    /**
+     * 보관 기간이 지난 키 삭제, 그 이후의 재시도는 새 주문이 된다
+     */
+    @Scheduled(fixedDelayString = "${jpashop.idempotency.purge-interval:PT1H}",
+            initialDelayString = "${jpashop.idempotency.purge-interval:PT1H}")
+    @Transactional
+    public void purge() {
+        LocalDateTime before = LocalDateTime.now().minus(retention);
+        idempotencyKeyRepository.deleteCreatedBefore(before);
+        synchronized (this) {
+            recent.values().removeIf(idempotencyKey -> idempotencyKey.getCreatedAt().isBefore(before));
+        }
+    }
+}
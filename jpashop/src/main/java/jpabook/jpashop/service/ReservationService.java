@@ -0,0 +1,222 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Reservation;
+import jpabook.jpashop.domain.ReservationStatus;
+import jpabook.jpashop.domain.StockChangeReason;
+import jpabook.jpashop.exception.NotEnoughStockException;
+import jpabook.jpashop.exception.NotFoundException;
+import jpabook.jpashop.repository.ItemLoader;
+import jpabook.jpashop.repository.ItemLoader.ItemView;
+import jpabook.jpashop.repository.ItemRepository;
+import jpabook.jpashop.repository.MemberRepository;
+import jpabook.jpashop.repository.ReservationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 재고 예약 (TTL)
+ * 예약하면 재고를 바로 차감하고, TTL 안에 주문(OrderService.orderReservation)하지 않으면 만료시켜 재고를 돌려놓는다
+ *
+ * 만료는 reservation 테이블을 주기적으로 조회하지 않고 HashedWheelTimer 에 예약 id 별로 걸어둔다
+ * 예약/취소/확정은 커밋 이후에 타이머에 등록/해제하고, 기동 시에는 RESERVED 예약을 읽어 다시 등록한다
+ * 만료된 id 는 tick 마다 묶어서 별도 스레드에서 한 트랜잭션으로 처리한다 (상품별 재고 update 는 JDBC batch)
+ *
+ * 인스턴스가 여러 대면 각자 자신이 받은 예약만 타이머에 들고 있다 (재시작하면 전체를 다시 읽는다)
+ * 만료/취소/확정은 예약 행 락 + 상태 확인으로 한 번만 처리되므로 같은 예약을 여러 곳에서 만료시켜도 재고는 한 번만 돌아간다
+ * 재고가 바뀌는 예약/취소/만료는 ItemService 와 같이 AggregateChangedEvent(ITEM) 를 발행한다
+ */
+@Slf4j
+@Service
+@Transactional(readOnly = true)
+public class ReservationService {
+
+    private static final int IN_QUERY_CHUNK_SIZE = 1000;
+
+    private final ReservationRepository reservationRepository;
+    private final MemberRepository memberRepository;
+    private final ItemRepository itemRepository;
+    private final ItemLoader itemLoader;
+    private final StockLedger stockLedger;
+    private final LowStockWatermarks lowStockWatermarks;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Duration defaultTtl;
+    private final Duration maxTtl;
+    private final Duration retryDelay;
+    private final HashedWheelTimer timer;
+    private final ExecutorService expiryExecutor;
+
+    public ReservationService(ReservationRepository reservationRepository,
+                              MemberRepository memberRepository,
+                              ItemRepository itemRepository,
+                              ItemLoader itemLoader,
+                              StockLedger stockLedger,
+                              LowStockWatermarks lowStockWatermarks,
+                              ApplicationEventPublisher eventPublisher,
+                              TransactionTemplate transactionTemplate,
+                              @Value("${jpashop.reservation.ttl:15m}") Duration defaultTtl,
+                              @Value("${jpashop.reservation.max-ttl:1h}") Duration maxTtl,
+                              @Value("${jpashop.reservation.tick:100ms}") Duration tick,
+                              @Value("${jpashop.reservation.wheel-size:4096}") int wheelSize,
+                              @Value("${jpashop.reservation.retry-delay:5s}") Duration retryDelay) {
+        this.reservationRepository = reservationRepository;
+        this.memberRepository = memberRepository;
+        this.itemRepository = itemRepository;
+        this.itemLoader = itemLoader;
+        this.stockLedger = stockLedger;
+        this.lowStockWatermarks = lowStockWatermarks;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.defaultTtl = defaultTtl;
+        this.maxTtl = maxTtl;
+        this.retryDelay = retryDelay;
+        // 타이머 스레드는 tick 만 돌리고, DB 작업은 만료 처리 스레드 하나에서 순서대로
+        this.expiryExecutor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("reservation-expiry-"));
+        this.timer = new HashedWheelTimer(tick.toNanos(), wheelSize, new CustomizableThreadFactory("reservation-timer-"),
+                ids -> expiryExecutor.execute(() -> expire(ids)));
+    }
+
+    @PreDestroy
+    public void close() {
+        timer.stop();
+        expiryExecutor.shutdown();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        int[] count = new int[1];
+        reservationRepository.streamReserved(row -> {
+            schedule((Long) row[0], (LocalDateTime) row[1]);
+            count[0]++;
+        });
+        log.info("reservation timers recovered, size={}", count[0]);
+    }
+
+    /**
+     * 상품 가격/이름은 주문과 같이 트랜잭션을 시작하기 전에 ItemLoader 로 읽는다 (OrderService.order)
+     *
+     * @param ttl null 이면 jpashop.reservation.ttl
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Reservation reserve(Long memberId, Long itemId, int count, Duration ttl) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("예약 수량은 1 이상이어야 합니다");
+        }
+        Duration expiresIn = ttl == null ? defaultTtl : ttl;
+        if (expiresIn.isNegative() || expiresIn.isZero() || expiresIn.compareTo(maxTtl) > 0) {
+            throw new IllegalArgumentException("예약 시간은 " + maxTtl + " 이하여야 합니다");
+        }
+
+        ItemView item = itemLoader.load(itemId);
+        if (item == null) {
+            throw new IllegalArgumentException("상품이 없습니다. itemId=" + itemId);
+        }
+
+        return transactionTemplate.execute(status -> {
+            if (!memberRepository.existsById(memberId)) {
+                throw new IllegalArgumentException("회원이 없습니다. memberId=" + memberId);
+            }
+            if (!itemRepository.removeStock(itemId, count)) {
+                throw new NotEnoughStockException("재고가 부족합니다");
+            }
+            Reservation reservation = new Reservation(memberId, itemId, item.getPrice(), count,
+                    LocalDateTime.now().plus(expiresIn));
+            reservationRepository.save(reservation);
+            stockLedger.record(itemId, -count, StockChangeReason.RESERVE, null);
+            lowStockWatermarks.removed(itemId, count);
+            eventPublisher.publishEvent(new AggregateChangedEvent(Aggregate.ITEM));
+
+            AfterCommit.run(() -> schedule(reservation.getId(), reservation.getExpiresAt()));
+            return reservation;
+        });
+    }
+
+    /**
+     * 예약 취소, 재고를 돌려놓는다
+     */
+    @Transactional
+    public void release(Long reservationId, Long memberId) {
+        Reservation reservation = reservationRepository.findForUpdate(reservationId);
+        if (reservation == null || !reservation.getMemberId().equals(memberId)) {
+            throw new NotFoundException("예약이 없습니다. reservationId=" + reservationId);
+        }
+        reservation.release(ReservationStatus.RELEASED);
+        restock(List.of(reservation));
+        unschedule(reservationId);
+    }
+
+    public Reservation findOne(Long reservationId) {
+        return reservationRepository.findOne(reservationId);
+    }
+
+    /**
+     * 만료 타이머에 걸려있는 예약 수
+     */
+    public int getPendingExpirations() {
+        return timer.size();
+    }
+
+    /**
+     * 예약이 확정/취소되면 커밋 이후에 만료 타이머를 해제한다
+     */
+    public void unschedule(Long reservationId) {
+        AfterCommit.run(() -> timer.cancel(reservationId));
+    }
+
+    /**
+     * 만료 처리 스레드, 실패하면 retry-delay 뒤에 다시 시도한다
+     */
+    private void expire(List<Long> ids) {
+        for (int i = 0; i < ids.size(); i += IN_QUERY_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(i, Math.min(i + IN_QUERY_CHUNK_SIZE, ids.size()));
+            try {
+                Integer expired = transactionTemplate.execute(status -> {
+                    List<Reservation> reservations = reservationRepository.findReservedForUpdate(chunk);
+                    for (Reservation reservation : reservations) {
+                        reservation.release(ReservationStatus.EXPIRED);
+                    }
+                    restock(reservations);
+                    return reservations.size();
+                });
+                log.debug("reservations expired: {} of {}", expired, chunk.size());
+            } catch (RuntimeException e) {
+                log.warn("reservation expiry failed, retry in {}: {} ids", retryDelay, chunk.size(), e);
+                chunk.forEach(id -> timer.schedule(id, retryDelay.toNanos()));
+            }
+        }
+    }
+
+    private void restock(List<Reservation> reservations) {
+        Map<Long, Integer> stocks = new HashMap<>();
+        for (Reservation reservation : reservations) {
+            stocks.merge(reservation.getItemId(), reservation.getCount(), Integer::sum);
+            stockLedger.record(reservation.getItemId(), reservation.getCount(), StockChangeReason.RELEASE, null);
+        }
+        itemRepository.addStockAll(stocks);
+        if (!stocks.isEmpty()) {
+            eventPublisher.publishEvent(new AggregateChangedEvent(Aggregate.ITEM));
+        }
+    }
+
+    private void schedule(Long reservationId, LocalDateTime expiresAt) {
+        timer.schedule(reservationId, Duration.between(LocalDateTime.now(), expiresAt).toNanos());
+    }
+}
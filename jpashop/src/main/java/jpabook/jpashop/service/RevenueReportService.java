@@ -0,0 +1,69 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.repository.OrderRepository;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * 가격 이력 기준 매출 재계산
+ * 주문상품을 한번 스트리밍하면서 행마다 메모리 인덱스(PriceHistory)에서 가격을 찾는다 (행마다 이력 테이블을 조회하지 않는다)
+ */
+@Service
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class RevenueReportService {
+
+    private final OrderRepository orderRepository;
+    private final PriceHistory priceHistory;
+
+    /**
+     * [from, to) 기간 주문(취소 제외)의 매출
+     * revenue : 실제 주문 가격(orderPrice) 기준
+     * listRevenue : asOf 가 없으면 주문 시점의 정가, 있으면 asOf 시점의 정가 기준
+     *               그 시점의 가격 이력이 없는 주문상품은 주문 가격으로 계산하고 unpricedLines 로 센다
+     */
+    public RevenueReport report(LocalDateTime from, LocalDateTime to, LocalDateTime asOf, boolean includeArchived) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("from 은 to 보다 이전이어야 합니다");
+        }
+        long start = System.currentTimeMillis();
+        long asOfMillis = asOf == null ? 0 : PriceHistory.millis(asOf);
+        long[] totals = new long[4]; // lines, revenue, listRevenue, unpricedLines
+
+        orderRepository.streamOrderLines(from, to, includeArchived, rs -> {
+            long itemId = rs.getLong(1);
+            int count = rs.getInt(3);
+            int orderPrice = rs.getInt(4);
+            int listPrice = priceHistory.priceAt(itemId, asOf == null ? rs.getTimestamp(2).getTime() : asOfMillis);
+            if (listPrice == PriceHistory.NO_PRICE) {
+                listPrice = orderPrice;
+                totals[3]++;
+            }
+            totals[0]++;
+            totals[1] += (long) orderPrice * count;
+            totals[2] += (long) listPrice * count;
+        });
+
+        return new RevenueReport(from, to, asOf, includeArchived,
+                totals[0], totals[1], totals[2], totals[3], System.currentTimeMillis() - start);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class RevenueReport {
+        private LocalDateTime from;
+        private LocalDateTime to;
+        private LocalDateTime asOf;
+        private boolean includeArchived;
+        private long orderLines;
+        private long revenue;
+        private long listRevenue;
+        private long unpricedLines;
+        private long elapsedMillis;
+    }
+}
@@ -0,0 +1,86 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.StockChangeReason;
+import jpabook.jpashop.domain.StockLedgerEntry;
+import jpabook.jpashop.repository.StockLedgerRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 재고 변경 기록
+ * 재고를 바꾸는 곳(주문, 취소, 상품 등록/수정)에서 변경량을 남긴다
+ * 트랜잭션 안에서는 모아두었다가 커밋 직전에 JDBC batch 한번으로 쓰고, 롤백되면 버린다
+ */
+@Component
+@RequiredArgsConstructor
+public class StockLedger {
+
+    private final StockLedgerRepository stockLedgerRepository;
+
+    public void record(Long itemId, int delta, StockChangeReason reason, Long orderId) {
+        if (delta == 0) {
+            return;
+        }
+        StockLedgerEntry entry = new StockLedgerEntry(itemId, delta, reason, orderId);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            stockLedgerRepository.insertAll(List.of(entry));
+            return;
+        }
+        buffer().add(entry);
+    }
+
+    /**
+     * 엔티티로 재고를 차감한 주문 (OrderItem.createOrderItem)
+     */
+    public void recordOrdered(Order order) {
+        for (OrderItem orderItem : order.getOrderItems()) {
+            record(orderItem.getItem().getId(), -orderItem.getCount(), StockChangeReason.ORDER, order.getId());
+        }
+    }
+
+    public void recordCanceled(Order order) {
+        for (OrderItem orderItem : order.getOrderItems()) {
+            record(orderItem.getItem().getId(), orderItem.getCount(), StockChangeReason.CANCEL, order.getId());
+        }
+    }
+
+    /**
+     * 벌크 취소, 주문상품에서 바로 insert ... select 한다
+     */
+    public void recordCanceled(List<Long> orderIds) {
+        stockLedgerRepository.insertCanceled(orderIds, LocalDateTime.now());
+    }
+
+    private List<StockLedgerEntry> buffer() {
+        @SuppressWarnings("unchecked")
+        List<StockLedgerEntry> buffer = (List<StockLedgerEntry>) TransactionSynchronizationManager.getResource(this);
+        if (buffer != null) {
+            return buffer;
+        }
+
+        List<StockLedgerEntry> created = new ArrayList<>();
+        TransactionSynchronizationManager.bindResource(this, created);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                if (!created.isEmpty()) {
+                    stockLedgerRepository.insertAll(created);
+                }
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResource(StockLedger.this);
+            }
+        });
+        return created;
+    }
+}
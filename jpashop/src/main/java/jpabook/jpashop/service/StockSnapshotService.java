@@ -0,0 +1,139 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.StockSnapshot;
+import jpabook.jpashop.repository.ItemRepository;
+import jpabook.jpashop.repository.StockLedgerRepository;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 재고 스냅샷(원장 압축)과 재고 재구성/검증
+ * 재고 = 최신 스냅샷 + 스냅샷 이후의 원장
+ */
+@Slf4j
+@Service
+@Lazy(false) // @Scheduled 는 빈이 만들어져야 등록되므로 lazy-initialization 에서 제외
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class StockSnapshotService {
+
+    private static final int MAX_REPORTED_MISMATCHES = 100;
+
+    private final StockLedgerRepository stockLedgerRepository;
+    private final ItemRepository itemRepository;
+
+    /**
+     * 원장 id 는 insert 시점에 매겨지고 커밋은 그 뒤라서, 최근 원장까지 압축하면
+     * 더 작은 id 로 늦게 커밋된 원장이 스냅샷에서 빠질 수 있다. lag 만큼 지난 원장까지만 압축한다
+     */
+    @Value("${jpashop.stock.snapshot-lag:1m}")
+    private Duration snapshotLag;
+
+    // cron을 "-"로 설정하면 비활성화
+    // snapshot() 을 자기 호출하면 프록시를 거치지 않으므로 여기서 쓰기 트랜잭션을 연다
+    @Scheduled(cron = "${jpashop.stock.snapshot-cron:0 30 * * * *}")
+    @Transactional
+    public void scheduledSnapshot() {
+        StockSnapshot snapshot = snapshot();
+        if (snapshot != null) {
+            log.info("stock snapshot {} up to ledger {}", snapshot.getId(), snapshot.getLedgerPosition());
+        }
+    }
+
+    /**
+     * 이전 스냅샷 + 그 이후 원장으로 새 스냅샷을 만들고 이전 스냅샷은 지운다 (원장은 그대로 둔다)
+     * @return 새로 반영할 원장이 없으면 null
+     */
+    @Transactional
+    public StockSnapshot snapshot() {
+        StockSnapshot previous = stockLedgerRepository.findLatestSnapshot();
+        long from = previous == null ? 0 : previous.getLedgerPosition();
+        LocalDateTime now = LocalDateTime.now();
+        long to = stockLedgerRepository.findLedgerPosition(now.minus(snapshotLag));
+        if (to <= from) {
+            return null;
+        }
+
+        StockSnapshot snapshot = new StockSnapshot(to, now);
+        stockLedgerRepository.saveSnapshot(snapshot);
+        stockLedgerRepository.insertSnapshotLines(snapshot.getId(), previous == null ? null : previous.getId(), from, to);
+        stockLedgerRepository.deleteSnapshotsBefore(snapshot.getId());
+        return snapshot;
+    }
+
+    /**
+     * 스냅샷 + 원장으로 전체 상품의 재고를 재구성해서 item 테이블과 비교한다
+     * 한 트랜잭션에서 읽지만 격리 수준에 따라 동시에 들어온 주문은 불일치로 보일 수 있다
+     */
+    public StockVerification verify() {
+        long start = System.nanoTime();
+        LongIntMap stocks = new LongIntMap(1024);
+
+        StockSnapshot snapshot = stockLedgerRepository.findLatestSnapshot();
+        if (snapshot != null) {
+            stockLedgerRepository.streamSnapshotLines(snapshot.getId(), rs -> stocks.add(rs.getLong(1), rs.getInt(2)));
+        }
+        long ledgerEntries = stockLedgerRepository.streamLedger(
+                snapshot == null ? 0 : snapshot.getLedgerPosition(), rs -> stocks.add(rs.getLong(1), rs.getInt(2)));
+
+        // 상품 테이블과 비교하고, 상품 테이블에 없는 상품(원장에만 있는)은 seen 으로 찾는다
+        List<StockMismatch> mismatches = new ArrayList<>();
+        long[] counts = new long[2]; // [items, mismatches]
+        LongIntMap seen = new LongIntMap(stocks.size());
+        itemRepository.streamStocks(rs -> {
+            long itemId = rs.getLong(1);
+            int actual = rs.getInt(2);
+            int expected = stocks.get(itemId);
+            seen.add(itemId, 1);
+            counts[0]++;
+            if (!stocks.containsKey(itemId) || expected != actual) {
+                counts[1]++;
+                if (mismatches.size() < MAX_REPORTED_MISMATCHES) {
+                    mismatches.add(new StockMismatch(itemId, stocks.containsKey(itemId) ? expected : null, actual));
+                }
+            }
+        });
+        stocks.forEach((itemId, expected) -> {
+            if (!seen.containsKey(itemId)) {
+                counts[1]++;
+                if (mismatches.size() < MAX_REPORTED_MISMATCHES) {
+                    mismatches.add(new StockMismatch(itemId, expected, null));
+                }
+            }
+        });
+
+        return new StockVerification(snapshot == null ? null : snapshot.getId(), ledgerEntries,
+                counts[0], counts[1], mismatches, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class StockVerification {
+        private Long snapshotId;
+        private long ledgerEntries; // 스냅샷 이후 재생한 원장 수
+        private long items;
+        private long mismatchCount;
+        private List<StockMismatch> mismatches; // 최대 100건
+        private long elapsedMillis;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class StockMismatch {
+        private Long itemId;
+        private Integer expected; // 원장 기준, 원장에 없으면 null
+        private Integer actual;   // item 테이블, 상품이 없으면 null
+    }
+}
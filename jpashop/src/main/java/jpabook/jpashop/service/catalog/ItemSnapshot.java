@@ -0,0 +1,65 @@
+package jpabook.jpashop.service.catalog;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 주문 폼에서 선택 가능한 상품 스냅샷 (id/name/price/stock)
+ */
+public class ItemSnapshot extends NameSortedSnapshot {
+
+    static final ItemSnapshot EMPTY = new ItemSnapshot(0, new long[0], new String[0], new int[0], new int[0]);
+
+    private final int[] prices;
+    private final int[] stocks;
+
+    private ItemSnapshot(long version, long[] ids, String[] names, int[] prices, int[] stocks) {
+        super(version, ids, names);
+        this.prices = prices;
+        this.stocks = stocks;
+    }
+
+    /**
+     * @param rows [id, name, price, stockQuantity]
+     */
+    static ItemSnapshot of(long version, List<Object[]> rows) {
+        String[] rawNames = new String[rows.size()];
+        for (int i = 0; i < rawNames.length; i++) {
+            rawNames[i] = (String) rows.get(i)[1];
+        }
+        Integer[] order = sortedByName(rawNames);
+
+        long[] ids = new long[order.length];
+        String[] names = new String[order.length];
+        int[] prices = new int[order.length];
+        int[] stocks = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            Object[] row = rows.get(order[i]);
+            ids[i] = (Long) row[0];
+            names[i] = (String) row[1];
+            prices[i] = (Integer) row[2];
+            stocks[i] = (Integer) row[3];
+        }
+        return new ItemSnapshot(version, ids, names, prices, stocks);
+    }
+
+    public List<ItemOption> search(String prefix, int limit) {
+        List<ItemOption> result = new ArrayList<>();
+        for (int i : indexesOf(prefix, limit)) {
+            result.add(new ItemOption(ids[i], names[i], prices[i], stocks[i]));
+        }
+        return result;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class ItemOption {
+        private Long id;
+        private String name;
+        private int price;
+        private int stockQuantity;
+    }
+}
@@ -0,0 +1,54 @@
+package jpabook.jpashop.service.catalog;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 주문 폼에서 선택 가능한 회원 스냅샷 (id/name)
+ */
+public class MemberSnapshot extends NameSortedSnapshot {
+
+    static final MemberSnapshot EMPTY = new MemberSnapshot(0, new long[0], new String[0]);
+
+    private MemberSnapshot(long version, long[] ids, String[] names) {
+        super(version, ids, names);
+    }
+
+    /**
+     * @param rows [id, name]
+     */
+    static MemberSnapshot of(long version, List<Object[]> rows) {
+        String[] rawNames = new String[rows.size()];
+        for (int i = 0; i < rawNames.length; i++) {
+            rawNames[i] = (String) rows.get(i)[1];
+        }
+        Integer[] order = sortedByName(rawNames);
+
+        long[] ids = new long[order.length];
+        String[] names = new String[order.length];
+        for (int i = 0; i < order.length; i++) {
+            Object[] row = rows.get(order[i]);
+            ids[i] = (Long) row[0];
+            names[i] = (String) row[1];
+        }
+        return new MemberSnapshot(version, ids, names);
+    }
+
+    public List<MemberOption> search(String prefix, int limit) {
+        List<MemberOption> result = new ArrayList<>();
+        for (int i : indexesOf(prefix, limit)) {
+            result.add(new MemberOption(ids[i], names[i]));
+        }
+        return result;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class MemberOption {
+        private Long id;
+        private String name;
+    }
+}
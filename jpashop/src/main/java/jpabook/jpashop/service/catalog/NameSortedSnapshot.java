@@ -0,0 +1,76 @@
+package jpabook.jpashop.service.catalog;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * 이름순으로 정렬된 배열 기반 스냅샷
+ * 엔티티 대신 필요한 값만 배열로 들고 있어서 메모리를 적게 쓰고,
+ * 정렬된 키에 이진 탐색을 해서 전체를 훑지 않고 prefix 검색을 한다
+ */
+abstract class NameSortedSnapshot {
+
+    @Getter
+    private final long version;
+    protected final long[] ids;
+    protected final String[] names;
+    private final String[] keys; // 검색용 소문자 이름
+
+    protected NameSortedSnapshot(long version, long[] ids, String[] names) {
+        this.version = version;
+        this.ids = ids;
+        this.names = names;
+        this.keys = new String[names.length];
+        for (int i = 0; i < names.length; i++) {
+            keys[i] = toKey(names[i]);
+        }
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * prefix로 시작하는 이름의 인덱스를 최대 limit개 반환
+     */
+    protected int[] indexesOf(String prefix, int limit) {
+        String key = toKey(prefix);
+        int from = Arrays.binarySearch(keys, key);
+        if (from < 0) {
+            from = -from - 1;
+        } else {
+            while (from > 0 && keys[from - 1].equals(key)) {
+                from--;
+            }
+        }
+
+        int to = from;
+        while (to < keys.length && to - from < limit && keys[to].startsWith(key)) {
+            to++;
+        }
+
+        int[] result = new int[to - from];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = from + i;
+        }
+        return result;
+    }
+
+    /**
+     * 이름순으로 정렬했을 때의 원래 인덱스 순서
+     */
+    protected static Integer[] sortedByName(String[] names) {
+        Integer[] order = new Integer[names.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> toKey(names[a]).compareTo(toKey(names[b])));
+        return order;
+    }
+
+    private static String toKey(String name) {
+        return name == null ? "" : name.toLowerCase(Locale.ROOT);
+    }
+}
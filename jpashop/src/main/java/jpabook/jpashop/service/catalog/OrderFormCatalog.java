@@ -0,0 +1,102 @@
+package jpabook.jpashop.service.catalog;
+
+import jpabook.jpashop.repository.ItemRepository;
+import jpabook.jpashop.repository.MemberRepository;
+import jpabook.jpashop.service.Aggregate;
+import jpabook.jpashop.service.AggregateChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+
+/**
+ * 주문 폼용 상품/회원 스냅샷
+ * 주문 폼을 열 때마다 전체 회원, 전체 상품을 조회하지 않도록 메모리에 들고 있는다
+ *
+ * 상품/회원이 변경되면(AggregateChangedEvent) 커밋 이후 비동기로 다시 만든다
+ * 변경이 몰려도 요청 버전만 올리고, 재생성은 한 번에 하나씩만 최신 버전으로 진행한다
+ * 재고는 스냅샷 시점의 값이며, 실제 재고 검증은 주문 시 Item.removeStock()에서 한다
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderFormCatalog {
+
+    private final ItemRepository itemRepository;
+    private final MemberRepository memberRepository;
+
+    private final SnapshotHolder<ItemSnapshot> items =
+            new SnapshotHolder<>(ItemSnapshot.EMPTY, this::loadItems);
+    private final SnapshotHolder<MemberSnapshot> members =
+            new SnapshotHolder<>(MemberSnapshot.EMPTY, this::loadMembers);
+
+    public ItemSnapshot getItems() {
+        return items.current;
+    }
+
+    public MemberSnapshot getMembers() {
+        return members.current;
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        items.refresh();
+        members.refresh();
+    }
+
+    @Async
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onChanged(AggregateChangedEvent event) {
+        if (event.getAggregate() == Aggregate.ITEM) {
+            items.refresh();
+        } else if (event.getAggregate() == Aggregate.MEMBER) {
+            members.refresh();
+        }
+    }
+
+    private ItemSnapshot loadItems(long version) {
+        ItemSnapshot snapshot = ItemSnapshot.of(version, itemRepository.findAllForSnapshot());
+        log.debug("item snapshot v{} loaded, size={}", version, snapshot.size());
+        return snapshot;
+    }
+
+    private MemberSnapshot loadMembers(long version) {
+        MemberSnapshot snapshot = MemberSnapshot.of(version, memberRepository.findAllForSnapshot());
+        log.debug("member snapshot v{} loaded, size={}", version, snapshot.size());
+        return snapshot;
+    }
+
+    static class SnapshotHolder<S extends NameSortedSnapshot> {
+
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicBoolean reloading = new AtomicBoolean();
+        private final LongFunction<S> loader;
+        private volatile S current;
+
+        SnapshotHolder(S initial, LongFunction<S> loader) {
+            this.current = initial;
+            this.loader = loader;
+        }
+
+        void refresh() {
+            requested.incrementAndGet();
+
+            // 이미 다른 스레드가 재생성 중이면 그 스레드가 끝난 뒤 최신 버전을 다시 확인한다
+            while (current.getVersion() < requested.get() && reloading.compareAndSet(false, true)) {
+                try {
+                    current = loader.apply(requested.get());
+                } finally {
+                    reloading.set(false);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package jpabook.jpashop.web;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 응답 시간을 보고 동시 처리 한도를 조정한다 (gradient 방식, Netflix concurrency-limits 의 Gradient2 참고)
+ * - longRtt : 천천히 따라가는 평소 응답 시간 (지수 이동 평균)
+ * - gradient = tolerance * longRtt / rtt (0.5 ~ 1.0) : 응답이 평소보다 느려질수록 한도를 줄인다
+ * - newLimit = limit * gradient + √limit : 응답 시간이 그대로면 조금씩 늘려본다
+ * 한도를 넘는 요청은 기다리게 하지 않고 바로 거절한다 (대기열에서 커넥션, 스레드를 잡고 있지 않도록)
+ */
+class AdaptiveConcurrencyLimit {
+
+    private static final int LONG_WINDOW = 600;
+    private static final double TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final int minLimit;
+    private final int maxLimit;
+    private volatile int limit;
+
+    // onSample
+    private double estimatedLimit;
+    private double longRtt;
+
+    AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit) {
+        this.minLimit = Math.max(minLimit, 1);
+        this.maxLimit = Math.max(maxLimit, this.minLimit);
+        this.estimatedLimit = Math.min(Math.max(initialLimit, this.minLimit), this.maxLimit);
+        this.limit = (int) estimatedLimit;
+    }
+
+    boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    void release(long rttNanos) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        onSample(rttNanos, inFlightBefore);
+    }
+
+    int getLimit() {
+        return limit;
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+
+    private synchronized void onSample(long rttNanos, int inFlightBefore) {
+        double rtt = Math.max(rttNanos, 1);
+        if (longRtt == 0) {
+            longRtt = rtt;
+            return;
+        }
+        longRtt += (rtt - longRtt) / LONG_WINDOW;
+
+        // 한도의 절반도 쓰지 않는 중이면 응답 시간이 한도 때문이라고 볼 수 없으므로 조정하지 않는다
+        if (inFlightBefore < estimatedLimit / 2) {
+            return;
+        }
+        // 부하가 빠진 뒤에는 높아진 평소 응답 시간이 빨리 내려오게 한다
+        if (longRtt / rtt > 2) {
+            longRtt *= 0.95;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRtt / rtt));
+        double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        newLimit = estimatedLimit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+        limit = (int) estimatedLimit;
+    }
+}
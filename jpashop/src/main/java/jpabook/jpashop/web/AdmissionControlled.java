@@ -0,0 +1,15 @@
+package jpabook.jpashop.web;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 주문처럼 DB 쓰기가 몰리는 핸들러
+ * 처리율(회원별/전체)과 동시 처리 한도를 넘으면 핸들러를 호출하지 않고 바로 429로 거절한다 (OrderAdmissionInterceptor)
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface AdmissionControlled {
+}
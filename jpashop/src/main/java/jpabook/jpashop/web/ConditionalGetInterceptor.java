@@ -0,0 +1,79 @@
+package jpabook.jpashop.web;
+
+import jpabook.jpashop.service.AggregateVersions;
+import jpabook.jpashop.web.ResponseBodyCache.CachedBody;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * @VersionedResource 핸들러의 조건부 GET 처리
+ * 1. If-None-Match 가 현재 ETag와 같으면 304
+ * 2. 같은 ETag로 캐시된 응답이 있으면 그대로 반환
+ * 두 경우 모두 핸들러(= DB 조회)를 호출하지 않는다
+ * 그 외에는 핸들러를 실행하고, ResponseBodyCacheFilter 가 응답을 캐시에 저장한다
+ */
+@Component
+@RequiredArgsConstructor
+public class ConditionalGetInterceptor implements HandlerInterceptor {
+
+    static final String CACHE_KEY_ATTRIBUTE = ConditionalGetInterceptor.class.getName() + ".cacheKey";
+
+    private final AggregateVersions aggregateVersions;
+    private final ResponseBodyCache responseBodyCache;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        if (!HttpMethod.GET.matches(request.getMethod()) || !(handler instanceof HandlerMethod)) {
+            return true;
+        }
+        VersionedResource versionedResource = ((HandlerMethod) handler).getMethodAnnotation(VersionedResource.class);
+        if (versionedResource == null) {
+            return true;
+        }
+
+        // 같은 URL이라도 Accept(JSON, CBOR ..)에 따라 표현이 다르므로 ETag를 나눈다
+        String representation = request.getRequestURI() + "?" + request.getQueryString()
+                + "|" + request.getHeader(HttpHeaders.ACCEPT);
+        String etag = "\"" + aggregateVersions.tag(versionedResource.value())
+                + "-" + Integer.toHexString(representation.hashCode()) + "\"";
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return false;
+        }
+
+        String cacheKey = etag + representation;
+        CachedBody cached = responseBodyCache.get(cacheKey);
+        if (cached != null) {
+            response.setContentType(cached.getContentType());
+            response.setContentLength(cached.getBody().length);
+            response.getOutputStream().write(cached.getBody());
+            return false;
+        }
+
+        request.setAttribute(CACHE_KEY_ATTRIBUTE, cacheKey);
+        return true;
+    }
+
+    private boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,82 @@
+package jpabook.jpashop.web;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 고정 크기 블록으로 나눈 direct ByteBuffer
+ * 응답 바이트를 힙 밖에 보관해서 GC 대상이 되지 않게 하고, 전체 크기는 생성 시점에 고정된다
+ * 스레드 안전하지 않으므로 사용하는 쪽에서 동기화한다
+ */
+class OffHeapBlockPool {
+
+    private final ByteBuffer arena;
+    private final int blockSize;
+    private final int[] freeBlocks;
+    private int freeCount;
+
+    OffHeapBlockPool(int blockSize, int blockCount) {
+        if ((long) blockSize * blockCount > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("블록 풀은 2GB를 넘을 수 없습니다");
+        }
+        this.arena = ByteBuffer.allocateDirect(blockSize * blockCount);
+        this.blockSize = blockSize;
+        this.freeBlocks = new int[blockCount];
+        for (int i = 0; i < blockCount; i++) {
+            freeBlocks[i] = blockCount - 1 - i;
+        }
+        this.freeCount = blockCount;
+    }
+
+    int blocksFor(int length) {
+        return (length + blockSize - 1) / blockSize;
+    }
+
+    int capacityBlocks() {
+        return freeBlocks.length;
+    }
+
+    int freeBlockCount() {
+        return freeCount;
+    }
+
+    /**
+     * @return 블록 번호들, 공간이 부족하면 null
+     */
+    int[] allocate(int length) {
+        int needed = blocksFor(length);
+        if (needed > freeCount) {
+            return null;
+        }
+        int[] blocks = new int[needed];
+        for (int i = 0; i < needed; i++) {
+            blocks[i] = freeBlocks[--freeCount];
+        }
+        return blocks;
+    }
+
+    void release(int[] blocks) {
+        for (int block : blocks) {
+            freeBlocks[freeCount++] = block;
+        }
+    }
+
+    void write(int[] blocks, byte[] src) {
+        ByteBuffer buffer = arena.duplicate();
+        for (int i = 0; i < blocks.length; i++) {
+            int offset = i * blockSize;
+            buffer.position(blocks[i] * blockSize);
+            buffer.put(src, offset, Math.min(blockSize, src.length - offset));
+        }
+    }
+
+    byte[] read(int[] blocks, int length) {
+        byte[] dst = new byte[length];
+        ByteBuffer buffer = arena.duplicate();
+        for (int i = 0; i < blocks.length; i++) {
+            int offset = i * blockSize;
+            buffer.position(blocks[i] * blockSize);
+            buffer.get(dst, offset, Math.min(blockSize, length - offset));
+        }
+        return dst;
+    }
+}
@@ -0,0 +1,166 @@
+package jpabook.jpashop.web;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.WebUtils;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @AdmissionControlled 핸들러의 입장 제어
+ * 1. 회원별 처리율 (memberId 가 파라미터, 경로 변수, JSON 본문 중 하나에 있을 때)
+ * 2. 전체 처리율
+ * 3. 응답 시간 기반 동시 처리 한도
+ * 를 차례로 확인해서 넘으면 핸들러(= 트랜잭션, 커넥션)까지 가지 않고 429 + Retry-After 로 바로 거절한다
+ * 뒤의 검사에서 거절되면 앞에서 받은 토큰은 돌려놓는다 (거절된 요청이 한도를 쓰지 않도록)
+ * 주문 쓰기가 몰려도 커넥션 풀이 주문으로 가득 차서 조회까지 느려지는 것을 막는다
+ */
+@Component
+public class OrderAdmissionInterceptor implements HandlerInterceptor {
+
+    private static final String STARTED_AT_ATTRIBUTE = OrderAdmissionInterceptor.class.getName() + ".startedAt";
+    private static final long GLOBAL_KEY = 0;
+
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final StripedRateLimiter memberRate;
+    private final StripedRateLimiter globalRate;
+    private final AdaptiveConcurrencyLimit concurrencyLimit;
+
+    private final LongAdder rateLimited = new LongAdder();
+    private final LongAdder concurrencyLimited = new LongAdder();
+
+    public OrderAdmissionInterceptor(ObjectMapper objectMapper,
+                                     @Value("${jpashop.admission.enabled:true}") boolean enabled,
+                                     @Value("${jpashop.admission.member-rate:5}") double memberRate,
+                                     @Value("${jpashop.admission.member-burst:10}") int memberBurst,
+                                     @Value("${jpashop.admission.member-stripes:4096}") int memberStripes,
+                                     @Value("${jpashop.admission.global-rate:1000}") double globalRate,
+                                     @Value("${jpashop.admission.global-burst:200}") int globalBurst,
+                                     @Value("${jpashop.admission.initial-limit:20}") int initialLimit,
+                                     @Value("${jpashop.admission.min-limit:4}") int minLimit,
+                                     @Value("${jpashop.admission.max-limit:200}") int maxLimit) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.memberRate = new StripedRateLimiter(memberStripes, memberRate, memberBurst);
+        this.globalRate = new StripedRateLimiter(1, globalRate, globalBurst);
+        this.concurrencyLimit = new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!enabled || !(handler instanceof HandlerMethod)
+                || !((HandlerMethod) handler).hasMethodAnnotation(AdmissionControlled.class)) {
+            return true;
+        }
+
+        // 한 회원의 요청이 전체 한도를 먼저 소진하지 않도록 회원별 한도부터 본다
+        Long memberId = memberIdOf(request);
+        long wait = memberId == null ? 0 : memberRate.tryAcquire(memberId);
+        if (wait > 0) {
+            rateLimited.increment();
+            return reject(response, wait);
+        }
+        wait = globalRate.tryAcquire(GLOBAL_KEY);
+        if (wait > 0) {
+            releaseMember(memberId);
+            rateLimited.increment();
+            return reject(response, wait);
+        }
+
+        if (!concurrencyLimit.tryAcquire()) {
+            releaseMember(memberId);
+            globalRate.release(GLOBAL_KEY);
+            concurrencyLimited.increment();
+            return reject(response, 0);
+        }
+        request.setAttribute(STARTED_AT_ATTRIBUTE, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Object startedAt = request.getAttribute(STARTED_AT_ATTRIBUTE);
+        if (startedAt != null) {
+            concurrencyLimit.release(System.nanoTime() - (Long) startedAt);
+        }
+    }
+
+    /**
+     * 모니터링/부하 테스트용
+     */
+    public long getRateLimitedCount() {
+        return rateLimited.sum();
+    }
+
+    public long getConcurrencyLimitedCount() {
+        return concurrencyLimited.sum();
+    }
+
+    public int getConcurrencyLimit() {
+        return concurrencyLimit.getLimit();
+    }
+
+    private void releaseMember(Long memberId) {
+        if (memberId != null) {
+            memberRate.release(memberId);
+        }
+    }
+
+    private boolean reject(HttpServletResponse response, long waitNanos) {
+        long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+        return false;
+    }
+
+    /**
+     * 폼/쿼리 파라미터, 경로 변수({memberId}), JSON 본문 순으로 memberId 를 찾는다
+     * 본문은 CachedBodyRequestFilter 가 버퍼링한 요청만 읽는다 (핸들러가 다시 읽을 수 있어야 하므로)
+     */
+    @SuppressWarnings("unchecked")
+    private Long memberIdOf(HttpServletRequest request) {
+        String memberId = request.getParameter("memberId");
+        if (memberId == null) {
+            Map<String, String> pathVariables =
+                    (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+            memberId = pathVariables == null ? null : pathVariables.get("memberId");
+        }
+        if (memberId == null) {
+            memberId = bodyMemberIdOf(request);
+        }
+        if (memberId == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(memberId);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private String bodyMemberIdOf(HttpServletRequest request) {
+        CachedBodyRequest cached = WebUtils.getNativeRequest(request, CachedBodyRequest.class);
+        if (cached == null || cached.getBody().length == 0) {
+            return null;
+        }
+        try {
+            JsonNode memberId = objectMapper.readTree(cached.getBody()).get("memberId");
+            return memberId == null || !memberId.isValueNode() ? null : memberId.asText();
+        } catch (IOException e) {
+            return null; // 잘못된 본문은 핸들러에서 400 으로 처리된다
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package jpabook.jpashop.web;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 직렬화된 응답 바이트 캐시 (LRU)
+ * 키에 버전이 포함되어 있어서 무효화 없이 오래된 항목은 자연스럽게 밀려난다
+ */
+@Component
+public class ResponseBodyCache {
+
+    private final OffHeapBlockPool pool;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    public ResponseBodyCache(@Value("${jpashop.http-cache.capacity:16MB}") DataSize capacity,
+                             @Value("${jpashop.http-cache.block-size:4KB}") DataSize blockSize) {
+        int block = (int) blockSize.toBytes();
+        this.pool = new OffHeapBlockPool(block, (int) (capacity.toBytes() / block));
+    }
+
+    public synchronized CachedBody get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        return new CachedBody(entry.contentType, pool.read(entry.blocks, entry.length));
+    }
+
+    public synchronized void put(String key, String contentType, byte[] body) {
+        if (pool.blocksFor(body.length) > pool.capacityBlocks()) {
+            return; // 캐시 전체보다 큰 응답은 보관하지 않는다
+        }
+
+        Entry old = entries.remove(key);
+        if (old != null) {
+            pool.release(old.blocks);
+        }
+
+        int[] blocks;
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while ((blocks = pool.allocate(body.length)) == null) {
+            pool.release(eldest.next().getValue().blocks);
+            eldest.remove();
+        }
+
+        pool.write(blocks, body);
+        entries.put(key, new Entry(contentType, blocks, body.length));
+    }
+
+    @AllArgsConstructor
+    private static class Entry {
+        private final String contentType;
+        private final int[] blocks;
+        private final int length;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class CachedBody {
+        private final String contentType;
+        private final byte[] body;
+    }
+}
@@ -0,0 +1,43 @@
+package jpabook.jpashop.web;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * ConditionalGetInterceptor 가 캐시 키를 남긴 요청의 응답 바이트를 캐시에 저장한다
+ * 응답 본문을 잡아야 하기 때문에 인터셉터가 아닌 필터에서 처리한다
+ */
+@RequiredArgsConstructor
+public class ResponseBodyCacheFilter extends OncePerRequestFilter {
+
+    private final ResponseBodyCache responseBodyCache;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !HttpMethod.GET.matches(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        try {
+            filterChain.doFilter(request, wrapper);
+
+            String cacheKey = (String) request.getAttribute(ConditionalGetInterceptor.CACHE_KEY_ATTRIBUTE);
+            if (cacheKey != null && wrapper.getStatus() == HttpServletResponse.SC_OK) {
+                responseBodyCache.put(cacheKey, wrapper.getContentType(), wrapper.getContentAsByteArray());
+            }
+        } finally {
+            wrapper.copyBodyToResponse();
+        }
+    }
+}
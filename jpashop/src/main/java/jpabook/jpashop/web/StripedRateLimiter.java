@@ -0,0 +1,66 @@
+package jpabook.jpashop.web;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 키별 토큰 버킷 (GCRA, generic cell rate algorithm)
+ * 버킷 하나를 "다음 토큰이 채워지는 이론상 시각(TAT)" long 하나로 표현하고 CAS 한번으로 갱신한다 (락 없음)
+ *
+ * 키는 stripes 개의 슬롯 중 하나에 해시로 배정된다. 메모리가 키 수와 상관없이 고정되는 대신
+ * 같은 슬롯을 쓰는 키끼리는 한도를 나눠 쓰므로 stripes 는 동시에 요청하는 회원 수보다 넉넉하게 잡는다
+ */
+class StripedRateLimiter {
+
+    private final AtomicLongArray tats;
+    private final int mask;
+    private final long intervalNanos; // 토큰 하나가 채워지는 시간
+    private final long burstNanos;    // 한번에 쓸 수 있는 토큰(burst) 만큼 앞당겨 쓸 수 있는 시간
+    private final long origin = System.nanoTime();
+
+    StripedRateLimiter(int stripes, double permitsPerSecond, int burst) {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("permitsPerSecond, burst 는 0보다 커야 합니다");
+        }
+        int size = Integer.highestOneBit(Math.max(stripes, 1) * 2 - 1); // 2의 거듭제곱으로 올림
+        this.tats = new AtomicLongArray(size);
+        this.mask = size - 1;
+        this.intervalNanos = (long) (1_000_000_000L / permitsPerSecond);
+        this.burstNanos = intervalNanos * (burst - 1);
+    }
+
+    /**
+     * @return 0 이면 허용, 아니면 토큰이 생길 때까지 남은 시간(ns)
+     */
+    long tryAcquire(long key) {
+        int slot = slot(key);
+        long now = System.nanoTime() - origin;
+        while (true) {
+            long tat = tats.get(slot);
+            long start = Math.max(tat, now);
+            long wait = start - now - burstNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (tats.compareAndSet(slot, tat, start + intervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * tryAcquire 로 받은 토큰을 돌려놓는다 (뒤의 검사에서 요청이 거절된 경우)
+     */
+    void release(long key) {
+        tats.getAndAdd(slot(key), -intervalNanos);
+    }
+
+    private int slot(long key) {
+        // 연속된 id 가 이웃 슬롯에 몰리지 않도록 섞는다 (murmur3 fmix64)
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key & mask;
+    }
+}
@@ -0,0 +1,19 @@
+package jpabook.jpashop.web;
+
+import jpabook.jpashop.service.Aggregate;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 응답이 value 에 해당하는 데이터에만 의존하는 GET 핸들러
+ * 해당 버전들로 ETag를 만들고, 변경이 없으면 DB를 조회하지 않고 304 또는 캐시된 응답을 돌려준다
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface VersionedResource {
+
+    Aggregate[] value();
+}
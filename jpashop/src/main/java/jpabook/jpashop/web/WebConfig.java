@@ -0,0 +1,45 @@
+package jpabook.jpashop.web;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+
+    private final ConditionalGetInterceptor conditionalGetInterceptor;
+    private final OrderAdmissionInterceptor orderAdmissionInterceptor;
+    private final ResponseBodyCache responseBodyCache;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(orderAdmissionInterceptor);
+        registry.addInterceptor(conditionalGetInterceptor);
+    }
+
+    /**
+     * 응답 본문을 버퍼링하므로 @VersionedResource 가 붙은 경로에만 적용한다
+     */
+    @Bean
+    public FilterRegistrationBean<ResponseBodyCacheFilter> responseBodyCacheFilter() {
+        FilterRegistrationBean<ResponseBodyCacheFilter> registration =
+                new FilterRegistrationBean<>(new ResponseBodyCacheFilter(responseBodyCache));
+        registration.addUrlPatterns("/api/v2/members", "/api/v4/orders", "/items");
+        return registration;
+    }
+
+    /**
+     * 요청 본문을 버퍼링하므로 본문(JSON)에 memberId 가 있는 @AdmissionControlled 경로에만 적용한다
+     */
+    @Bean
+    public FilterRegistrationBean<CachedBodyRequestFilter> cachedBodyRequestFilter() {
+        FilterRegistrationBean<CachedBodyRequestFilter> registration =
+                new FilterRegistrationBean<>(new CachedBodyRequestFilter());
+        registration.addUrlPatterns("/api/reservations");
+        return registration;
+    }
+}
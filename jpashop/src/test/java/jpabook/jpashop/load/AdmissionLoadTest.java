@@ -0,0 +1,101 @@
+package jpabook.jpashop.load;
+
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.web.OrderAdmissionInterceptor;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static jpabook.jpashop.load.LoadHarness.durationProperty;
+import static jpabook.jpashop.load.LoadHarness.intProperty;
+
+/**
+ * 주문이 몰릴 때 입장 제어(jpashop.admission) 유무에 따른 조회 지연시간 비교
+ * 회원 한명(hot)이 주문의 절반을 보내고, 나머지는 여러 회원에게 나눈다. 429 는 errors 로 집계된다
+ *
+ * ./gradlew loadTest --tests '*AdmissionLoadTest' -Dload.concurrency=200
+ */
+@Tag("load")
+class AdmissionLoadTest {
+
+    private final int concurrency = intProperty("load.concurrency", 100);
+    private final int poolSize = intProperty("load.pool-size", 10);
+    private final int members = intProperty("load.admission.members", 200);
+    private final Duration warmup = durationProperty("load.warmup", Duration.ofSeconds(3));
+    private final Duration duration = durationProperty("load.duration", Duration.ofSeconds(10));
+
+    @Test
+    void compareWithAndWithoutAdmission() throws Exception {
+        LoadReport report = new LoadReport("admission")
+                .setting("concurrency", concurrency)
+                .setting("pool-size", poolSize)
+                .setting("members", members)
+                .setting("duration", duration);
+
+        for (boolean enabled : new boolean[]{false, true}) {
+            try (ConfigurableApplicationContext context = start(enabled)) {
+                int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+                List<Long> memberIds = seedMembers(context.getBean(MemberService.class));
+                Long itemId = seedItem(context.getBean(ItemService.class));
+                String name = enabled ? "admission on" : "admission off";
+
+                Workload workload = Workload.named(name)
+                        .add("POST /order", 7, (base, seq, random) -> order(base,
+                                seq % 2 == 0 ? memberIds.get(0) : memberIds.get((int) (seq % memberIds.size())), itemId))
+                        .add("GET /api/v3.1/orders", 3, (base, seq, random) ->
+                                HttpRequest.newBuilder(base.resolve("/api/v3.1/orders")).GET().build());
+                report.addAll(new LoadHarness(port).run(workload, concurrency, warmup, duration));
+
+                if (enabled) {
+                    OrderAdmissionInterceptor admission = context.getBean(OrderAdmissionInterceptor.class);
+                    report.setting("rate-limited", admission.getRateLimitedCount())
+                            .setting("concurrency-limited", admission.getConcurrencyLimitedCount())
+                            .setting("final-concurrency-limit", admission.getConcurrencyLimit());
+                }
+            }
+        }
+        report.write();
+    }
+
+    private HttpRequest order(URI base, Long memberId, Long itemId) {
+        return HttpRequest.newBuilder(base.resolve("/order"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString("memberId=" + memberId + "&itemId=" + itemId + "&count=1"))
+                .build();
+    }
+
+    private ConfigurableApplicationContext start(boolean enabled) {
+        return LoadHarness.start("admission-" + enabled,
+                "spring.datasource.hikari.maximum-pool-size=" + poolSize,
+                "jpashop.admission.enabled=" + enabled);
+    }
+
+    private List<Long> seedMembers(MemberService memberService) {
+        List<Long> memberIds = new ArrayList<>();
+        for (int i = 0; i < members; i++) {
+            Member member = new Member();
+            member.setName("admission-" + i);
+            memberIds.add(memberService.join(member));
+        }
+        return memberIds;
+    }
+
+    private Long seedItem(ItemService itemService) {
+        Book book = new Book();
+        book.setName("ADMISSION BOOK");
+        book.setPrice(10000);
+        book.setStockQuantity(Integer.MAX_VALUE / 2);
+        itemService.saveItem(book);
+        return book.getId();
+    }
+}
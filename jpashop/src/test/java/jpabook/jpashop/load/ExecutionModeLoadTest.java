@@ -0,0 +1,91 @@
+package jpabook.jpashop.load;
+
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.service.MemberService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static jpabook.jpashop.load.LoadHarness.durationProperty;
+import static jpabook.jpashop.load.LoadHarness.intProperty;
+
+/**
+ * platform / virtual 실행 모드별 처리량, 지연시간 비교
+ * Tomcat 스레드 수보다 동시 요청이 많고 커넥션 풀이 작을 때의 차이를 본다
+ *
+ * ./gradlew loadTest --tests '*ExecutionModeLoadTest' -PloadJavaHome=/path/to/jdk21
+ * virtual 모드는 Java 21 이상에서 실행할 때만 측정한다
+ */
+@Tag("load")
+class ExecutionModeLoadTest {
+
+    private final int concurrency = intProperty("load.concurrency", 200);
+    private final int tomcatThreads = intProperty("load.tomcat-threads", 50);
+    private final int poolSize = intProperty("load.pool-size", 10);
+    private final int dbPermits = intProperty("load.db-permits", 0);
+    private final Duration warmup = durationProperty("load.warmup", Duration.ofSeconds(3));
+    private final Duration duration = durationProperty("load.duration", Duration.ofSeconds(10));
+
+    @Test
+    void compareExecutionModes() throws Exception {
+        List<String> modes = new ArrayList<>(List.of("platform"));
+        if (Runtime.version().feature() >= 21) {
+            modes.add("virtual");
+        } else {
+            System.out.println("Java " + Runtime.version().feature() + " : virtual 모드는 측정하지 않습니다 (Java 21 이상 필요)");
+        }
+
+        List<LoadResult> results = new ArrayList<>();
+        for (String mode : modes) {
+            try (ConfigurableApplicationContext context = start(mode)) {
+                int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+                Long memberId = context.getBean(MemberService.class).findAllMembers().get(0).getId();
+                Long itemId = seedItem(context.getBean(ItemService.class));
+                LoadHarness harness = new LoadHarness(port);
+
+                results.add(harness.run(mode + " GET /api/v3.1/orders", concurrency, warmup, duration,
+                        (base, seq, random) -> HttpRequest.newBuilder(base.resolve("/api/v3.1/orders")).GET().build()));
+                results.add(harness.run(mode + " POST /order", concurrency, warmup, duration,
+                        (base, seq, random) -> HttpRequest.newBuilder(base.resolve("/order"))
+                                .header("Content-Type", "application/x-www-form-urlencoded")
+                                .POST(HttpRequest.BodyPublishers.ofString(
+                                        "memberId=" + memberId + "&itemId=" + itemId + "&count=1"))
+                                .build()));
+            }
+        }
+
+        LoadReport report = new LoadReport("execution-modes")
+                .setting("concurrency", concurrency)
+                .setting("tomcat-threads", tomcatThreads)
+                .setting("pool-size", poolSize)
+                .setting("db-permits", dbPermits)
+                .setting("duration", duration);
+        results.forEach(report::add);
+        report.write();
+    }
+
+    private ConfigurableApplicationContext start(String mode) {
+        return LoadHarness.start(mode,
+                "spring.datasource.hikari.maximum-pool-size=" + poolSize,
+                "server.tomcat.threads.max=" + tomcatThreads,
+                "jpashop.execution.mode=" + mode,
+                "jpashop.execution.db-permits=" + dbPermits,
+                "jpashop.admission.enabled=false"); // 실행 모드별 주문 처리량을 재므로 입장 제어는 끈다
+    }
+
+    private Long seedItem(ItemService itemService) {
+        Book book = new Book();
+        book.setName("LOAD BOOK");
+        book.setPrice(10000);
+        book.setStockQuantity(Integer.MAX_VALUE / 2);
+        itemService.saveItem(book);
+        return book.getId();
+    }
+}
@@ -0,0 +1,110 @@
+package jpabook.jpashop.load;
+
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.ItemLoader;
+import jpabook.jpashop.repository.ItemRepository;
+import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.service.MemberService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static jpabook.jpashop.load.LoadHarness.durationProperty;
+import static jpabook.jpashop.load.LoadHarness.intProperty;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 플래시 세일 : 주문의 대부분이 상품 하나에 몰릴 때 ItemLoader 의 batch-window 별 비교
+ * 실제로 실행된 상품 조회 쿼리 수와, 동시 차감 후 재고가 주문 수량과 맞는지도 확인한다
+ *
+ * ./gradlew loadTest --tests '*FlashSaleLoadTest' -Dload.concurrency=200
+ */
+@Tag("load")
+class FlashSaleLoadTest {
+
+    private static final int STOCK = 1_000_000;
+
+    private final int concurrency = intProperty("load.concurrency", 100);
+    private final int items = intProperty("load.flash-sale.items", 50);
+    private final int hotPercent = intProperty("load.flash-sale.hot-percent", 90);
+    private final Duration warmup = durationProperty("load.warmup", Duration.ofSeconds(3));
+    private final Duration duration = durationProperty("load.duration", Duration.ofSeconds(10));
+
+    @Test
+    void compareBatchWindows() throws Exception {
+        LoadReport report = new LoadReport("flash-sale")
+                .setting("concurrency", concurrency)
+                .setting("items", items)
+                .setting("hot-percent", hotPercent)
+                .setting("duration", duration);
+
+        for (String window : List.of("0ms", "2ms", "10ms")) {
+            try (ConfigurableApplicationContext context = start(window)) {
+                int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+                Long memberId = context.getBean(MemberService.class).findAllMembers().get(0).getId();
+                List<Long> itemIds = seedItems(context.getBean(ItemService.class));
+                ItemLoader itemLoader = context.getBean(ItemLoader.class);
+                long loadsBefore = itemLoader.getLoadCount();
+                long queriesBefore = itemLoader.getQueryCount();
+
+                report.add(new LoadHarness(port).run("batch-window " + window + " POST /order", concurrency, warmup, duration,
+                        (base, seq, random) -> HttpRequest.newBuilder(base.resolve("/order"))
+                                .header("Content-Type", "application/x-www-form-urlencoded")
+                                .POST(HttpRequest.BodyPublishers.ofString(
+                                        "memberId=" + memberId + "&itemId=" + pick(itemIds, seq) + "&count=1"))
+                                .build()));
+
+                report.setting("batch-window " + window + " loads/queries",
+                        (itemLoader.getLoadCount() - loadsBefore) + "/" + (itemLoader.getQueryCount() - queriesBefore));
+                assertStockConsistent(context.getBean(ItemRepository.class), context.getBean(JdbcTemplate.class), itemIds);
+            }
+        }
+        report.write();
+    }
+
+    private Long pick(List<Long> itemIds, long sequence) {
+        if (sequence % 100 < hotPercent) {
+            return itemIds.get(0);
+        }
+        return itemIds.get(1 + (int) (sequence % (itemIds.size() - 1)));
+    }
+
+    /**
+     * 동시 주문에서도 차감이 사라지지 않았는지 : 남은 재고 + 주문 수량 = 초기 재고
+     */
+    private void assertStockConsistent(ItemRepository itemRepository, JdbcTemplate jdbcTemplate, List<Long> itemIds) {
+        for (Long itemId : itemIds) {
+            // 상속 매핑 전략에 따라 재고 컬럼이 있는 테이블이 다르다
+            Integer stock = itemRepository.findStockQuantity(itemId);
+            Integer ordered = jdbcTemplate.queryForObject(
+                    "select coalesce(sum(count), 0) from order_item where item_id = ?", Integer.class, itemId);
+            assertThat(stock + ordered).as("itemId=" + itemId).isEqualTo(STOCK);
+        }
+    }
+
+    private ConfigurableApplicationContext start(String window) {
+        return LoadHarness.start("flash-sale-" + window,
+                "jpashop.item-loader.batch-window=" + window,
+                "jpashop.admission.enabled=false");
+    }
+
+    private List<Long> seedItems(ItemService itemService) {
+        List<Long> itemIds = new ArrayList<>();
+        for (int i = 0; i < items; i++) {
+            Book book = new Book();
+            book.setName("FLASH SALE " + i);
+            book.setPrice(10000 + i);
+            book.setStockQuantity(STOCK);
+            itemService.saveItem(book);
+            itemIds.add(book.getId());
+        }
+        return itemIds;
+    }
+}
@@ -0,0 +1,87 @@
+package jpabook.jpashop.load;
+
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import org.hibernate.engine.spi.SelfDirtinessTracker;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static jpabook.jpashop.load.LoadHarness.intProperty;
+
+/**
+ * 큰 영속성 컨텍스트의 flush 시간 측정
+ * 상품/주문상품을 전부 영속성 컨텍스트에 올린 뒤 한 건만 바꾸고 flush 한다
+ *
+ * enhancement 없이 빌드하면 flush 때마다 모든 엔티티의 스냅샷을 비교하고,
+ * enhancement(dirty tracking) 빌드는 변경된 엔티티만 확인한다
+ *
+ * ./gradlew loadTest --tests '*FlushBenchmarkTest'
+ * ./gradlew loadTest --tests '*FlushBenchmarkTest' -PnoEnhance   (비교용)
+ */
+@Tag("load")
+class FlushBenchmarkTest {
+
+    private final int items = intProperty("load.flush.items", 20_000);
+    private final int orders = intProperty("load.flush.orders", 10_000);
+    private final int warmupRounds = intProperty("load.flush.warmup-rounds", 5);
+    private final int rounds = intProperty("load.flush.rounds", 20);
+
+    @Test
+    void flushLargePersistenceContext() {
+        try (ConfigurableApplicationContext context = LoadHarness.start("flush",
+                "spring.jpa.properties.hibernate.jdbc.batch_size=1000")) {
+            EntityManagerFactory emf = context.getBean(EntityManagerFactory.class);
+            new ShopDataSeeder(emf, 1000, 42).seed(100, items, orders);
+
+            boolean enhanced = SelfDirtinessTracker.class.isAssignableFrom(Book.class);
+            LoadReport report = new LoadReport("flush")
+                    .setting("enhanced", enhanced)
+                    .setting("items", items)
+                    .setting("orders", orders)
+                    .setting("rounds", rounds);
+
+            report.add(measure(emf, "flush, nothing changed", items -> { }));
+            report.add(measure(emf, "flush, 1 item changed", items -> items.get(0).addStock(1)));
+            report.add(measure(emf, "flush, 1% items changed", items -> {
+                for (int i = 0; i < items.size(); i += 100) {
+                    items.get(i).addStock(1);
+                }
+            }));
+            report.write();
+        }
+    }
+
+    private LoadResult measure(EntityManagerFactory emf, String name, Consumer<List<Item>> change) {
+        long[] latencies = new long[rounds];
+        long total = 0;
+        for (int round = -warmupRounds; round < rounds; round++) {
+            EntityManager em = emf.createEntityManager();
+            try {
+                em.getTransaction().begin();
+                List<Item> loaded = em.createQuery("select i from Item i", Item.class).getResultList();
+                em.createQuery("select oi from OrderItem oi", OrderItem.class).getResultList();
+
+                change.accept(loaded);
+                long start = System.nanoTime();
+                em.flush();
+                long elapsed = System.nanoTime() - start;
+
+                if (round >= 0) {
+                    latencies[round] = elapsed;
+                    total += elapsed;
+                }
+            } finally {
+                em.getTransaction().rollback();
+                em.close();
+            }
+        }
+        return new LoadResult(name, latencies, 0, total);
+    }
+}
@@ -0,0 +1,136 @@
+package jpabook.jpashop.load;
+
+import jpabook.jpashop.JpashopApplication;
+import jpabook.jpashop.domain.item.Album;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.domain.item.Movie;
+import jpabook.jpashop.repository.ItemRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import static jpabook.jpashop.load.LoadHarness.intProperty;
+
+/**
+ * Item 상속 매핑별 조회 비교 (SINGLE_TABLE / JOINED / TABLE_PER_CLASS)
+ * 같은 상품 데이터를 매핑마다 새로 적재하고 ItemRepository 의 조회 시간을 잰다
+ *
+ * ./gradlew loadTest --tests '*ItemLayoutBenchmarkTest' -Dload.layout.items=30000
+ */
+@Tag("load")
+class ItemLayoutBenchmarkTest {
+
+    private final int items = intProperty("load.layout.items", 30_000);
+    private final int findAllRounds = intProperty("load.layout.find-all-rounds", 10);
+    private final int findOneRounds = intProperty("load.layout.find-one-rounds", 2_000);
+
+    @Test
+    void compareLayouts() {
+        LoadReport report = new LoadReport("item-layout")
+                .setting("items", items)
+                .setting("find-all-rounds", findAllRounds)
+                .setting("find-one-rounds", findOneRounds);
+
+        for (String layout : List.of("single-table", "joined", "table-per-class")) {
+            try (ConfigurableApplicationContext context = start(layout)) {
+                List<Long> bookIds = seed(context.getBean(EntityManagerFactory.class));
+                ItemRepository itemRepository = context.getBean(ItemRepository.class);
+                TransactionTemplate tx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+                tx.setReadOnly(true);
+                Random random = new Random(42);
+
+                report.add(measure(layout + " / findAll", findAllRounds,
+                        () -> tx.execute(s -> itemRepository.findAll())));
+                report.add(measure(layout + " / findAllForSnapshot", findAllRounds,
+                        () -> tx.execute(s -> itemRepository.findAllForSnapshot())));
+                report.add(measure(layout + " / findOne(Item)", findOneRounds,
+                        () -> tx.execute(s -> itemRepository.findOne(bookIds.get(random.nextInt(bookIds.size()))))));
+                report.add(measure(layout + " / findOne(Book)", findOneRounds,
+                        () -> tx.execute(s -> itemRepository.findOne(Book.class, bookIds.get(random.nextInt(bookIds.size()))))));
+            }
+        }
+        report.write();
+    }
+
+    private ConfigurableApplicationContext start(String layout) {
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(JpashopApplication.class);
+        if (!layout.equals("single-table")) {
+            builder.profiles("item-" + layout);
+        }
+        return LoadHarness.start(builder, "layout-" + layout,
+                "spring.jpa.properties.hibernate.jdbc.batch_size=1000");
+    }
+
+    /**
+     * Book / Album / Movie 를 같은 비율로 적재한다
+     * @return Book id 목록
+     */
+    private List<Long> seed(EntityManagerFactory emf) {
+        List<Long> bookIds = new ArrayList<>();
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            for (int i = 0; i < items; i++) {
+                Item item;
+                if (i % 3 == 0) {
+                    Book book = new Book();
+                    book.setAuthor("author-" + i);
+                    book.setIsbn("isbn-" + i);
+                    item = book;
+                } else if (i % 3 == 1) {
+                    Album album = new Album();
+                    album.setArtist("artist-" + i);
+                    album.setEtc("etc-" + i);
+                    item = album;
+                } else {
+                    Movie movie = new Movie();
+                    movie.setActor("actor-" + i);
+                    movie.setDirector("director-" + i);
+                    item = movie;
+                }
+                item.setName("item-" + i);
+                item.setPrice(1000 + i % 100);
+                item.setStockQuantity(100);
+                em.persist(item);
+                if (item instanceof Book) {
+                    bookIds.add(item.getId());
+                }
+                if (i % 1000 == 999) {
+                    em.flush();
+                    em.clear();
+                }
+            }
+            em.getTransaction().commit();
+        } finally {
+            em.close();
+        }
+        return bookIds;
+    }
+
+    private LoadResult measure(String name, int rounds, Supplier<?> query) {
+        int warmup = Math.max(rounds / 10, 1);
+        long[] latencies = new long[rounds];
+        long total = 0;
+        for (int round = -warmup; round < rounds; round++) {
+            long start = System.nanoTime();
+            query.get();
+            long elapsed = System.nanoTime() - start;
+            if (round >= 0) {
+                latencies[round] = elapsed;
+                total += elapsed;
+            }
+        }
+        return new LoadResult(name, latencies, 0, total);
+    }
+}
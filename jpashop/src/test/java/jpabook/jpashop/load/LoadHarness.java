@@ -0,0 +1,234 @@
+package jpabook.jpashop.load;
+
+import jpabook.jpashop.JpashopApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * closed-loop 부하 발생기
+ * concurrency 개의 워커가 duration 동안 쉬지 않고 요청을 보내고, 요청마다 지연시간을 기록한다
+ * warmup 구간의 요청은 결과에서 제외한다
+ * 워커마다 seed 에서 나눈 난수열을 쓰므로 같은 seed 면 워커별 요청 종류/파라미터 순서가 같다 (재현, 비교용)
+ */
+public class LoadHarness {
+
+    private final HttpClient client;
+    private final URI baseUri;
+    private final long seed;
+
+    /**
+     * seed 는 -Dload.seed (기본 42)
+     */
+    public LoadHarness(int port) {
+        this(port, longProperty("load.seed", 42));
+    }
+
+    public LoadHarness(int port, long seed) {
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        this.baseUri = URI.create("http://localhost:" + port);
+        this.seed = seed;
+    }
+
+    /**
+     * 보낼 요청을 만든다. 지금 보낼 수 있는 요청이 없으면 null (다른 종류를 다시 고른다)
+     * 파라미터를 무작위로 고를 때는 워커의 random 을 쓴다
+     */
+    @FunctionalInterface
+    public interface RequestFactory {
+        HttpRequest create(URI baseUri, long sequence, SplittableRandom random);
+    }
+
+    /**
+     * 부하 테스트용 애플리케이션 기동
+     * 랜덤 포트, 인메모리 H2(jdbc:h2:mem:load-{name}), SQL 로그 끔, 아카이브 스케줄 끔을 기본으로 하고
+     * overrides(key=value)는 기본값 뒤에 적용된다 (같은 키면 덮어쓴다)
+     */
+    public static ConfigurableApplicationContext start(String name, String... overrides) {
+        return start(new SpringApplicationBuilder(JpashopApplication.class), name, overrides);
+    }
+
+    /**
+     * 프로파일 등을 지정한 builder 로 기동한다
+     */
+    public static ConfigurableApplicationContext start(SpringApplicationBuilder builder, String name, String... overrides) {
+        Map<String, String> properties = new LinkedHashMap<>();
+        put(properties, "server.port=0");
+        put(properties, "spring.datasource.url=jdbc:h2:mem:load-" + name + ";DB_CLOSE_DELAY=-1");
+        put(properties, "spring.jpa.properties.hibernate.show_sql=false");
+        put(properties, "logging.level.org.hibernate.SQL=warn");
+        put(properties, "jpashop.archive.cron=-");
+        for (String override : overrides) {
+            put(properties, override);
+        }
+        return builder.run(args(properties));
+    }
+
+    private static void put(Map<String, String> properties, String property) {
+        int separator = property.indexOf('=');
+        properties.put(property.substring(0, separator), property.substring(separator + 1));
+    }
+
+    /**
+     * 테스트용 설정을 command line 인자(--key=value)로 넘긴다
+     * SpringApplicationBuilder.properties() 는 기본값이라 application.yml 에 있는 키는 덮어쓰지 못한다
+     * 같은 키를 두번 넘기면 값이 합쳐지므로(a,b) 키별로 하나만 넘긴다
+     */
+    private static String[] args(Map<String, String> properties) {
+        return properties.entrySet().stream()
+                .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                .toArray(String[]::new);
+    }
+
+    public static int intProperty(String name, int defaultValue) {
+        return Integer.parseInt(System.getProperty(name, String.valueOf(defaultValue)));
+    }
+
+    public static long longProperty(String name, long defaultValue) {
+        return Long.parseLong(System.getProperty(name, String.valueOf(defaultValue)));
+    }
+
+    public static Duration durationProperty(String name, Duration defaultValue) {
+        String value = System.getProperty(name);
+        return value == null ? defaultValue : Duration.parse(value);
+    }
+
+    public LoadResult run(String name, int concurrency, Duration warmup, Duration duration, RequestFactory requestFactory)
+            throws Exception {
+        return run(Workload.single(name, requestFactory), concurrency, warmup, duration).get(0);
+    }
+
+    /**
+     * @return 요청 종류별 결과, 요청 종류가 둘 이상이면 마지막에 전체 합계
+     */
+    public List<LoadResult> run(Workload workload, int concurrency, Duration warmup, Duration duration)
+            throws Exception {
+        List<Workload.Operation> operations = workload.getOperations();
+        AtomicLong sequence = new AtomicLong();
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+
+        SplittableRandom random = new SplittableRandom(seed);
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        try {
+            List<Future<Worker>> futures = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++) {
+                Worker worker = new Worker(operations.size(), random.split());
+                futures.add(workers.submit(() -> worker.run(workload, sequence, measureFrom, end)));
+            }
+
+            Recorder[] merged = new Recorder[operations.size()];
+            Recorder total = new Recorder();
+            for (int i = 0; i < merged.length; i++) {
+                merged[i] = new Recorder();
+            }
+            for (Future<Worker> future : futures) {
+                Worker worker = future.get();
+                for (int i = 0; i < merged.length; i++) {
+                    merged[i].addAll(worker.recorders[i]);
+                    total.addAll(worker.recorders[i]);
+                }
+            }
+
+            List<LoadResult> results = new ArrayList<>();
+            for (int i = 0; i < merged.length; i++) {
+                String name = operations.size() == 1 ? workload.getName() : workload.getName() + " / " + operations.get(i).getName();
+                results.add(merged[i].toResult(name, end - measureFrom));
+            }
+            if (operations.size() > 1) {
+                results.add(total.toResult(workload.getName() + " / total", end - measureFrom));
+            }
+            return results;
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private class Worker {
+
+        private final Recorder[] recorders;
+        private final SplittableRandom random;
+
+        Worker(int operations, SplittableRandom random) {
+            this.random = random;
+            this.recorders = new Recorder[operations];
+            for (int i = 0; i < operations; i++) {
+                recorders[i] = new Recorder();
+            }
+        }
+
+        Worker run(Workload workload, AtomicLong sequence, long measureFrom, long end) {
+            List<Workload.Operation> operations = workload.getOperations();
+            long now;
+            while ((now = System.nanoTime()) < end) {
+                int op = workload.pick(random);
+                HttpRequest request = operations.get(op).getRequestFactory().create(baseUri, sequence.incrementAndGet(), random);
+                if (request == null) {
+                    continue;
+                }
+
+                boolean ok;
+                try {
+                    HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                    ok = response.statusCode() < 400;
+                } catch (Exception e) {
+                    ok = false;
+                }
+                long latency = System.nanoTime() - now;
+
+                if (now >= measureFrom) {
+                    recorders[op].record(latency, ok);
+                }
+            }
+            return this;
+        }
+    }
+
+    private static class Recorder {
+
+        private long[] latencies = new long[256];
+        private int count;
+        private long errors;
+
+        void record(long latencyNanos, boolean ok) {
+            if (!ok) {
+                errors++;
+            }
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latencyNanos;
+        }
+
+        void addAll(Recorder other) {
+            if (count + other.count > latencies.length) {
+                latencies = Arrays.copyOf(latencies, Math.max(latencies.length * 2, count + other.count));
+            }
+            System.arraycopy(other.latencies, 0, latencies, count, other.count);
+            count += other.count;
+            errors += other.errors;
+        }
+
+        LoadResult toResult(String name, long elapsedNanos) {
+            return new LoadResult(name, Arrays.copyOf(latencies, count), errors, elapsedNanos);
+        }
+    }
+}
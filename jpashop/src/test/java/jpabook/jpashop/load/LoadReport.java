@@ -0,0 +1,78 @@
+package jpabook.jpashop.load;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 부하 테스트 결과 리포트
+ * 콘솔에 표로 출력하고, 실행끼리 비교할 수 있도록 같은 컬럼의 CSV 파일로 남긴다 (load.report-dir, 기본 build/load-reports)
+ */
+public class LoadReport {
+
+    private final String suite;
+    private final Map<String, Object> settings = new LinkedHashMap<>();
+    private final List<LoadResult> results = new ArrayList<>();
+
+    public LoadReport(String suite) {
+        this.suite = suite;
+        settings.put("java", Runtime.version().toString());
+        settings.put("cpus", Runtime.getRuntime().availableProcessors());
+        settings.put("max-heap-mb", Runtime.getRuntime().maxMemory() / 1024 / 1024);
+    }
+
+    public LoadReport setting(String name, Object value) {
+        settings.put(name, value);
+        return this;
+    }
+
+    public void add(LoadResult result) {
+        results.add(result);
+    }
+
+    public void addAll(List<LoadResult> results) {
+        this.results.addAll(results);
+    }
+
+    public Path write() {
+        print();
+
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        Path dir = Paths.get(System.getProperty("load.report-dir", "build/load-reports"));
+        Path file = dir.resolve(suite + "-" + timestamp + ".csv");
+
+        List<String> lines = new ArrayList<>();
+        settings.forEach((name, value) -> lines.add("# " + name + "=" + value));
+        lines.add("suite,scenario,requests,errors,throughput,p50_ms,p99_ms,p999_ms,max_ms");
+        for (LoadResult r : results) {
+            lines.add(String.format(Locale.ROOT, "%s,\"%s\",%d,%d,%.1f,%.3f,%.3f,%.3f,%.3f",
+                    suite, r.getName(), r.getRequests(), r.getErrors(), r.getThroughput(),
+                    r.getP50(), r.getP99(), r.getP999(), r.getMax()));
+        }
+
+        try {
+            Files.createDirectories(dir);
+            Files.write(file, lines);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        System.out.println("report: " + file.toAbsolutePath());
+        return file;
+    }
+
+    private void print() {
+        System.out.println();
+        System.out.println("[" + suite + "] " + settings);
+        System.out.println(LoadResult.header());
+        results.forEach(r -> System.out.println(r.toRow()));
+    }
+}
@@ -0,0 +1,53 @@
+package jpabook.jpashop.load;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/**
+ * 시나리오 하나의 부하 테스트 결과
+ */
+@Getter
+public class LoadResult {
+
+    private final String name;
+    private final long requests;
+    private final long errors;
+    private final double throughput; // 초당 요청 수
+    private final double p50;        // ms
+    private final double p99;
+    private final double p999;
+    private final double max;
+
+    LoadResult(String name, long[] latencyNanos, long errors, long elapsedNanos) {
+        long[] sorted = latencyNanos.clone();
+        Arrays.sort(sorted);
+
+        this.name = name;
+        this.requests = sorted.length;
+        this.errors = errors;
+        this.throughput = sorted.length / (elapsedNanos / 1_000_000_000.0);
+        this.p50 = percentile(sorted, 0.50);
+        this.p99 = percentile(sorted, 0.99);
+        this.p999 = percentile(sorted, 0.999);
+        this.max = sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1_000_000.0;
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(index, 0)] / 1_000_000.0;
+    }
+
+    public static String header() {
+        return String.format("%-48s %9s %7s %10s %9s %9s %9s %9s",
+                "scenario", "requests", "errors", "req/s", "p50(ms)", "p99(ms)", "p999(ms)", "max(ms)");
+    }
+
+    public String toRow() {
+        return String.format("%-48s %9d %7d %10.1f %9.2f %9.2f %9.2f %9.2f",
+                name, requests, errors, throughput, p50, p99, p999, max);
+    }
+}
@@ -0,0 +1,121 @@
+package jpabook.jpashop.load;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import lombok.Getter;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.BiConsumer;
+
+/**
+ * 부하 테스트용 데이터 적재
+ * 서비스를 거치지 않고 배치 단위 트랜잭션으로 바로 persist 한다 (batchSize 마다 flush/clear)
+ * seed 가 같으면 같은 데이터가 만들어진다
+ */
+public class ShopDataSeeder {
+
+    private static final int STOCK = 1_000_000_000;
+
+    private final EntityManagerFactory emf;
+    private final int batchSize;
+    private final Random random;
+
+    public ShopDataSeeder(EntityManagerFactory emf, int batchSize, long seed) {
+        this.emf = emf;
+        this.batchSize = batchSize;
+        this.random = new Random(seed);
+    }
+
+    @Getter
+    public static class SeededData {
+        private final List<Long> memberIds = new ArrayList<>();
+        private final List<Long> itemIds = new ArrayList<>();
+        private final List<Long> orderIds = new ArrayList<>();
+        private long elapsedMillis;
+    }
+
+    public SeededData seed(int members, int items, int orders) {
+        long start = System.currentTimeMillis();
+        SeededData data = new SeededData();
+        List<Long> addressIds = new ArrayList<>(); // memberIds 와 같은 순서
+
+        inBatches(members, (em, i) -> {
+            Address address = new Address("city-" + (i % 50), "street-" + i, zipcode(i));
+            em.persist(address);
+            Member member = new Member();
+            member.setName("load-member-" + i);
+            member.setAddress(address);
+            em.persist(member);
+            data.memberIds.add(member.getId());
+            addressIds.add(address.getId());
+        });
+
+        inBatches(items, (em, i) -> {
+            Book book = new Book();
+            book.setName("load-book-" + i);
+            book.setPrice(1000 + random.nextInt(50) * 1000);
+            book.setStockQuantity(STOCK);
+            book.setAuthor("author-" + (i % 100));
+            book.setIsbn("isbn-" + i);
+            em.persist(book);
+            data.itemIds.add(book.getId());
+        });
+
+        inBatches(orders, (em, i) -> {
+            // 서비스와 같이 배송지는 회원 주소
+            int picked = random.nextInt(data.memberIds.size());
+            Member member = em.getReference(Member.class, data.memberIds.get(picked));
+            Delivery delivery = new Delivery();
+            delivery.setAddress(em.getReference(Address.class, addressIds.get(picked)));
+
+            int lines = 1 + random.nextInt(3);
+            OrderItem[] orderItems = new OrderItem[lines];
+            for (int line = 0; line < lines; line++) {
+                Item item = em.find(Item.class, pick(data.itemIds));
+                orderItems[line] = OrderItem.createOrderItem(item, item.getPrice(), 1 + random.nextInt(3));
+            }
+
+            Order order = Order.createOrder(member, delivery, orderItems);
+            em.persist(order);
+            data.orderIds.add(order.getId());
+        });
+
+        data.elapsedMillis = System.currentTimeMillis() - start;
+        return data;
+    }
+
+    private void inBatches(int count, BiConsumer<EntityManager, Integer> work) {
+        for (int from = 0; from < count; from += batchSize) {
+            EntityManager em = emf.createEntityManager();
+            try {
+                em.getTransaction().begin();
+                for (int i = from; i < Math.min(from + batchSize, count); i++) {
+                    work.accept(em, i);
+                }
+                em.getTransaction().commit();
+            } finally {
+                if (em.getTransaction().isActive()) {
+                    em.getTransaction().rollback();
+                }
+                em.close();
+            }
+        }
+    }
+
+    private Long pick(List<Long> ids) {
+        return ids.get(random.nextInt(ids.size()));
+    }
+
+    private static String zipcode(int i) {
+        return String.format("%05d", i % 1000);
+    }
+}
@@ -0,0 +1,145 @@
+package jpabook.jpashop.load;
+
+import jpabook.jpashop.service.Aggregate;
+import jpabook.jpashop.service.AggregateChangedEvent;
+import jpabook.jpashop.service.DeliveryStatusCounter;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.persistence.EntityManagerFactory;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static jpabook.jpashop.load.LoadHarness.durationProperty;
+import static jpabook.jpashop.load.LoadHarness.intProperty;
+
+/**
+ * 쇼핑몰 부하 테스트
+ * 내장 H2(메모리)에 load.members/items/orders 만큼 데이터를 적재하고 워크로드별 처리량, p50/p99/p999 를 기록한다
+ *
+ * ./gradlew loadTest --tests '*ShopLoadTest' -Dload.orders=50000 -Dload.concurrency=64
+ *
+ * - listings : 주문 조회 API 버전별 비교 (v3.1, v4, v5, v6)
+ * - mixed    : 주문, 주문 취소, 회원 가입, 주문/회원 목록 조회를 섞은 워크로드
+ */
+@Tag("load")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ShopLoadTest {
+
+    private final int members = intProperty("load.members", 1_000);
+    private final int items = intProperty("load.items", 200);
+    private final int orders = intProperty("load.orders", 5_000);
+    private final int seedBatchSize = intProperty("load.seed-batch-size", 500);
+    private final long seed = intProperty("load.seed", 42);
+    private final int concurrency = intProperty("load.concurrency", 32);
+    private final Duration warmup = durationProperty("load.warmup", Duration.ofSeconds(5));
+    private final Duration duration = durationProperty("load.duration", Duration.ofSeconds(20));
+    private final String mode = System.getProperty("load.mode", "platform");
+
+    private ConfigurableApplicationContext context;
+    private LoadHarness harness;
+    private ShopDataSeeder.SeededData data;
+
+    @BeforeAll
+    void setUp() {
+        context = LoadHarness.start("shop",
+                "spring.jpa.properties.hibernate.jdbc.batch_size=" + seedBatchSize,
+                "jpashop.execution.mode=" + mode,
+                "jpashop.admission.enabled=false");
+        harness = new LoadHarness(((ServletWebServerApplicationContext) context).getWebServer().getPort(), seed);
+
+        data = new ShopDataSeeder(context.getBean(EntityManagerFactory.class), seedBatchSize, seed)
+                .seed(members, items, orders);
+        System.out.printf("seeded members=%d, items=%d, orders=%d in %dms%n",
+                members, items, orders, data.getElapsedMillis());
+
+        // 서비스를 거치지 않고 적재했으므로 캐시/카운터를 다시 맞춘다
+        for (Aggregate aggregate : Aggregate.values()) {
+            context.publishEvent(new AggregateChangedEvent(aggregate));
+        }
+        context.getBean(DeliveryStatusCounter.class).reload();
+    }
+
+    @AfterAll
+    void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Test
+    void listings() throws Exception {
+        Workload workload = Workload.named("listings")
+                .add("GET /api/v3.1/orders", 1, get("/api/v3.1/orders"))
+                .add("GET /api/v4/orders", 1, get("/api/v4/orders"))
+                .add("GET /api/v5/orders", 1, get("/api/v5/orders"))
+                .add("GET /api/v6/orders", 1, get("/api/v6/orders"));
+
+        LoadReport report = report("listings");
+        report.addAll(harness.run(workload, concurrency, warmup, duration));
+        report.write();
+    }
+
+    @Test
+    void mixed() throws Exception {
+        Queue<Long> cancelable = new ConcurrentLinkedQueue<>(data.getOrderIds());
+        String nonce = Long.toString(System.nanoTime(), 36);
+
+        Workload workload = Workload.named("mixed")
+                .add("POST /order", 40, (base, seq, random) -> form(base, "/order",
+                        "memberId=" + pick(data.getMemberIds(), random) +
+                                "&itemId=" + pick(data.getItemIds(), random) +
+                                "&count=" + (1 + random.nextInt(3))))
+                .add("POST /orders/{id}/cancel", 15, (base, seq, random) -> {
+                    Long orderId = cancelable.poll();
+                    return orderId == null ? null : form(base, "/orders/" + orderId + "/cancel", "");
+                })
+                .add("POST /api/v2/members", 10, (base, seq, random) -> HttpRequest.newBuilder(base.resolve("/api/v2/members"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString("{\"name\":\"join-" + nonce + "-" + seq + "\"}"))
+                        .build())
+                .add("GET /api/v4/orders", 15, get("/api/v4/orders"))
+                .add("GET /api/v2/members", 20, get("/api/v2/members"));
+
+        LoadReport report = report("mixed");
+        report.addAll(harness.run(workload, concurrency, warmup, duration));
+        report.write();
+    }
+
+    private LoadReport report(String suite) {
+        return new LoadReport(suite)
+                .setting("mode", mode)
+                .setting("seed", seed)
+                .setting("members", members)
+                .setting("items", items)
+                .setting("orders", orders)
+                .setting("concurrency", concurrency)
+                .setting("warmup", warmup)
+                .setting("duration", duration);
+    }
+
+    private static LoadHarness.RequestFactory get(String path) {
+        return (base, seq, random) -> HttpRequest.newBuilder(base.resolve(path)).GET().build();
+    }
+
+    private static HttpRequest form(URI base, String path, String body) {
+        return HttpRequest.newBuilder(base.resolve(path))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static Long pick(List<Long> ids, SplittableRandom random) {
+        return ids.get(random.nextInt(ids.size()));
+    }
+}
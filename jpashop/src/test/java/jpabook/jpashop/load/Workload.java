@@ -0,0 +1,69 @@
+package jpabook.jpashop.load;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * 가중치가 붙은 요청 종류들의 묶음
+ * 워커는 요청마다 가중치에 비례해서 종류를 하나 고른다
+ */
+public class Workload {
+
+    @Getter
+    private final String name;
+    private final List<Operation> operations = new ArrayList<>();
+    private int totalWeight;
+
+    private Workload(String name) {
+        this.name = name;
+    }
+
+    public static Workload named(String name) {
+        return new Workload(name);
+    }
+
+    public static Workload single(String name, LoadHarness.RequestFactory requestFactory) {
+        return named(name).add(name, 1, requestFactory);
+    }
+
+    public Workload add(String operation, int weight, LoadHarness.RequestFactory requestFactory) {
+        if (weight <= 0) {
+            throw new IllegalArgumentException("weight must be positive: " + operation);
+        }
+        operations.add(new Operation(operation, weight, requestFactory));
+        totalWeight += weight;
+        return this;
+    }
+
+    List<Operation> getOperations() {
+        return Collections.unmodifiableList(operations);
+    }
+
+    int pick(SplittableRandom random) {
+        int r = random.nextInt(totalWeight);
+        for (int i = 0; i < operations.size(); i++) {
+            r -= operations.get(i).weight;
+            if (r < 0) {
+                return i;
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    @Getter
+    static class Operation {
+        private final String name;
+        private final int weight;
+        private final LoadHarness.RequestFactory requestFactory;
+
+        Operation(String name, int weight, LoadHarness.RequestFactory requestFactory) {
+            this.name = name;
+            this.weight = weight;
+            this.requestFactory = requestFactory;
+        }
+    }
+}
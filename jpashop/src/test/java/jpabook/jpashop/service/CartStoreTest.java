@@ -0,0 +1,80 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.service.CartStore.Cart;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CartStoreTest {
+
+    @Test
+    void getOrCreateKeepsCartPerMember() {
+        CartStore store = new CartStore(100, 10, Duration.ofMinutes(30));
+
+        assertThat(store.get(1L)).isNull();
+        Cart cart = store.getOrCreate(1L);
+        assertThat(store.getOrCreate(1L)).isSameAs(cart);
+        assertThat(store.get(1L)).isSameAs(cart);
+        assertThat(store.size()).isEqualTo(1);
+
+        store.remove(1L);
+        assertThat(store.get(1L)).isNull();
+    }
+
+    @Test
+    void limitsLinesPerCart() {
+        Cart cart = new Cart(2);
+        cart.add(1L, 1);
+        cart.add(2L, 1);
+        cart.add(1L, 2); // 이미 담긴 상품은 개수 제한과 상관없다
+
+        assertThatThrownBy(() -> cart.add(3L, 1)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> cart.set(3L, 1)).isInstanceOf(IllegalStateException.class);
+        assertThat(cart.lines()).containsExactly(Map.entry(1L, 3), Map.entry(2L, 1));
+    }
+
+    @Test
+    void restoreAddsBackToDrainedCart() {
+        Cart cart = new Cart(10);
+        cart.add(1L, 2);
+        cart.add(2L, 1);
+
+        Map<Long, Integer> drained = cart.drain();
+        assertThat(cart.drain()).isEmpty(); // 동시에 주문해도 한쪽만 상품을 받는다
+
+        cart.add(1L, 5);
+        cart.restore(drained);
+        assertThat(cart.lines()).containsExactly(Map.entry(1L, 7), Map.entry(2L, 1));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedOverMaxCarts() {
+        CartStore store = new CartStore(16, 10, Duration.ofMinutes(30)); // segment 당 1개
+
+        for (long memberId = 1; memberId <= 100; memberId++) {
+            store.getOrCreate(memberId);
+        }
+
+        assertThat(store.size()).isLessThanOrEqualTo(16);
+        assertThat(store.get(100L)).isNotNull();
+    }
+
+    @Test
+    void evictsIdleCarts() throws InterruptedException {
+        CartStore idle = new CartStore(100, 10, Duration.ofMillis(1));
+        CartStore active = new CartStore(100, 10, Duration.ofMinutes(30));
+        idle.getOrCreate(1L);
+        active.getOrCreate(1L);
+        Thread.sleep(10);
+
+        idle.evictIdle();
+        active.evictIdle();
+
+        assertThat(idle.get(1L)).isNull();
+        assertThat(active.get(1L)).isNotNull();
+    }
+}
@@ -0,0 +1,71 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.service.DeliveryBatcher.Batch;
+import jpabook.jpashop.service.DeliveryBatcher.Stop;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * 트랜잭션 밖에서는 added/removed 가 바로 반영된다 (reload 는 쓰지 않으므로 repository 없이)
+ */
+class DeliveryBatcherTest {
+
+    private final DeliveryBatcher batcher = new DeliveryBatcher(null, 2, 3);
+
+    @Test
+    void groupsByRegionInZipcodeOrder() {
+        batcher.added(1L, 11L, "12399");
+        batcher.added(2L, 12L, "12300");
+        batcher.added(3L, 13L, "45600");
+        batcher.added(4L, 14L, "12345");
+        batcher.added(5L, 15L, null);
+
+        assertThat(batcher.getBatches("123"))
+                .extracting(Batch::getRegion, Batch::getSequence, batch -> deliveryIds(batch))
+                .containsExactly(
+                        tuple("123", 1, List.of(2L, 4L)),
+                        tuple("123", 2, List.of(1L)));
+        assertThat(batcher.getBatches(null))
+                .extracting(Batch::getRegion)
+                .containsExactly(DeliveryBatcher.UNKNOWN_REGION, "123", "123", "456");
+        assertThat(batcher.getBatches("999")).isEmpty();
+        assertThat(batcher.size()).isEqualTo(5);
+    }
+
+    @Test
+    void regroupsAfterRemoval() {
+        batcher.added(1L, 11L, "12301");
+        batcher.added(2L, 12L, "12302");
+        batcher.added(3L, 13L, "12303");
+        assertThat(batcher.getBatches("123")).hasSize(2);
+
+        batcher.removedOrders(List.of(11L));
+        assertThat(batcher.getBatches("123"))
+                .extracting(batch -> deliveryIds(batch))
+                .containsExactly(List.of(2L, 3L));
+
+        batcher.removedDeliveries(List.of(2L, 3L));
+        assertThat(batcher.getBatches("123")).isEmpty();
+        assertThat(batcher.getBatches(null)).isEmpty();
+        assertThat(batcher.size()).isZero();
+    }
+
+    @Test
+    void addingSameDeliveryMovesIt() {
+        batcher.added(1L, 11L, "12301");
+        batcher.added(1L, 11L, "45601"); // 주소 변경
+
+        assertThat(batcher.getBatches("123")).isEmpty();
+        assertThat(batcher.getBatches("456")).hasSize(1);
+        assertThat(batcher.size()).isEqualTo(1);
+    }
+
+    private static List<Long> deliveryIds(Batch batch) {
+        return batch.getDeliveries().stream().map(Stop::getDeliveryId).collect(Collectors.toList());
+    }
+}
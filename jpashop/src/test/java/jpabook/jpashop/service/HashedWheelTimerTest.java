@@ -0,0 +1,123 @@
+package jpabook.jpashop.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HashedWheelTimerTest {
+
+    private static final long TICK = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final int WHEEL_SIZE = 8; // 한 바퀴 80ms
+
+    private final BlockingQueue<Expired> expired = new LinkedBlockingQueue<>();
+    private HashedWheelTimer timer;
+
+    @BeforeEach
+    void setUp() {
+        timer = new HashedWheelTimer(TICK, WHEEL_SIZE, r -> {
+            Thread thread = new Thread(r, "test-timer");
+            thread.setDaemon(true);
+            return thread;
+        }, ids -> {
+            long now = System.nanoTime();
+            ids.forEach(id -> expired.add(new Expired(id, now)));
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        timer.stop();
+    }
+
+    @Test
+    void expiresAfterDelay() throws InterruptedException {
+        long scheduledAt = System.nanoTime();
+        timer.schedule(1L, TimeUnit.MILLISECONDS.toNanos(30));
+
+        Expired first = expired.poll(5, TimeUnit.SECONDS);
+        assertThat(first).isNotNull();
+        assertThat(first.id).isEqualTo(1L);
+        assertThat(first.at - scheduledAt).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(30));
+        assertThat(timer.size()).isZero();
+    }
+
+    @Test
+    void delayLongerThanWheelWaitsForRemainingRounds() throws InterruptedException {
+        long scheduledAt = System.nanoTime();
+        timer.schedule(1L, TimeUnit.MILLISECONDS.toNanos(250)); // 3바퀴 넘게
+        timer.schedule(2L, TimeUnit.MILLISECONDS.toNanos(10));
+
+        // 같은 버킷을 지나가도 바퀴 수가 남아 있으면 만료되지 않는다
+        assertThat(expired.poll(5, TimeUnit.SECONDS).id).isEqualTo(2L);
+        Expired far = expired.poll(5, TimeUnit.SECONDS);
+        assertThat(far).isNotNull();
+        assertThat(far.id).isEqualTo(1L);
+        assertThat(far.at - scheduledAt).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(250));
+    }
+
+    @Test
+    void cancelledTimeoutDoesNotExpire() throws InterruptedException {
+        timer.schedule(1L, TimeUnit.MILLISECONDS.toNanos(50));
+        timer.schedule(2L, TimeUnit.MILLISECONDS.toNanos(100));
+
+        assertThat(timer.cancel(1L)).isTrue();
+        assertThat(timer.cancel(1L)).isFalse();
+        assertThat(timer.size()).isEqualTo(1);
+
+        assertThat(expired.poll(5, TimeUnit.SECONDS).id).isEqualTo(2L);
+        assertThat(expired.poll(100, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    void cannotCancelAfterExpiry() throws InterruptedException {
+        timer.schedule(1L, 0);
+
+        assertThat(expired.poll(5, TimeUnit.SECONDS).id).isEqualTo(1L);
+        assertThat(timer.cancel(1L)).isFalse();
+    }
+
+    @Test
+    void rescheduleReplacesDeadline() throws InterruptedException {
+        long scheduledAt = System.nanoTime();
+        timer.schedule(1L, TimeUnit.MILLISECONDS.toNanos(20));
+        timer.schedule(1L, TimeUnit.MILLISECONDS.toNanos(200));
+        assertThat(timer.size()).isEqualTo(1);
+
+        Expired first = expired.poll(5, TimeUnit.SECONDS);
+        assertThat(first.at - scheduledAt).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(200));
+        assertThat(expired.poll(100, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    void expiriesInSameTickAreBatched() throws InterruptedException {
+        BlockingQueue<List<Long>> batches = new LinkedBlockingQueue<>();
+        HashedWheelTimer batching = new HashedWheelTimer(TimeUnit.MILLISECONDS.toNanos(100), WHEEL_SIZE,
+                Thread::new, batches::add);
+        try {
+            for (long id = 1; id <= 3; id++) {
+                batching.schedule(id, 0);
+            }
+            assertThat(batches.poll(5, TimeUnit.SECONDS)).containsExactlyInAnyOrder(1L, 2L, 3L);
+        } finally {
+            batching.stop();
+        }
+    }
+
+    private static final class Expired {
+
+        final long id;
+        final long at;
+
+        Expired(long id, long at) {
+            this.id = id;
+            this.at = at;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package jpabook.jpashop.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LongIntMapTest {
+
+    @Test
+    void addAccumulates() {
+        LongIntMap map = new LongIntMap(4);
+
+        map.add(7L, 3);
+        map.add(7L, -5);
+        map.add(0L, 1);
+
+        assertThat(map.size()).isEqualTo(2);
+        assertThat(map.get(7L)).isEqualTo(-2);
+        assertThat(map.get(0L)).isEqualTo(1);
+        assertThat(map.containsKey(0L)).isTrue();
+    }
+
+    @Test
+    void missingKeyIsZero() {
+        LongIntMap map = new LongIntMap(4);
+        map.add(1L, 1);
+
+        assertThat(map.get(2L)).isZero();
+        assertThat(map.containsKey(2L)).isFalse();
+    }
+
+    @Test
+    void keepsEntriesAcrossResize() {
+        LongIntMap map = new LongIntMap(1);
+        Map<Long, Integer> expected = new HashMap<>();
+        for (long key = -5_000; key < 5_000; key++) {
+            long spread = key * 1_000_003L; // 같은 해시 자리 근처로 몰리는 키도 섞는다
+            map.add(spread, (int) key);
+            map.add(spread, 1);
+            expected.put(spread, (int) key + 1);
+        }
+
+        assertThat(map.size()).isEqualTo(expected.size());
+        expected.forEach((key, value) -> assertThat(map.get(key)).isEqualTo(value));
+
+        Map<Long, Integer> visited = new HashMap<>();
+        map.forEach(visited::put);
+        assertThat(visited).isEqualTo(expected);
+    }
+}
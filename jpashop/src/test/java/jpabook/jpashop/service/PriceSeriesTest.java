@@ -0,0 +1,40 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.service.PriceHistory.PriceSeries;
+import org.junit.jupiter.api.Test;
+
+import static jpabook.jpashop.service.PriceHistory.NO_PRICE;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PriceSeriesTest {
+
+    @Test
+    void priceAtFindsInterval() {
+        PriceSeries series = PriceSeries.of(100, 1000)
+                .with(300, 3000)
+                .with(200, 2000); // 순서와 상관없이 시각 순으로 들어간다
+
+        assertThat(series.priceAt(99)).isEqualTo(NO_PRICE);
+        assertThat(series.priceAt(100)).isEqualTo(1000);
+        assertThat(series.priceAt(199)).isEqualTo(1000);
+        assertThat(series.priceAt(200)).isEqualTo(2000);
+        assertThat(series.priceAt(299)).isEqualTo(2000);
+        assertThat(series.priceAt(300)).isEqualTo(3000);
+        assertThat(series.priceAt(Long.MAX_VALUE)).isEqualTo(3000);
+    }
+
+    @Test
+    void laterRecordWinsAtSameTime() {
+        PriceSeries series = PriceSeries.of(100, 1000).with(100, 1500);
+
+        assertThat(series.priceAt(100)).isEqualTo(1500);
+    }
+
+    @Test
+    void withDoesNotChangeOriginal() {
+        PriceSeries original = PriceSeries.of(100, 1000);
+        original.with(200, 2000);
+
+        assertThat(original.priceAt(200)).isEqualTo(1000);
+    }
+}
@@ -0,0 +1,85 @@
+package jpabook.jpashop.web;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimitTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(20);
+
+    @Test
+    void rejectsAboveLimit() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(2, 1, 10);
+
+        assertThat(limit.tryAcquire()).isTrue();
+        assertThat(limit.tryAcquire()).isTrue();
+        assertThat(limit.tryAcquire()).isFalse();
+        assertThat(limit.getInFlight()).isEqualTo(2);
+
+        limit.release(FAST);
+        assertThat(limit.getInFlight()).isEqualTo(1);
+        assertThat(limit.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void clampsInitialLimit() {
+        assertThat(new AdaptiveConcurrencyLimit(100, 1, 10).getLimit()).isEqualTo(10);
+        assertThat(new AdaptiveConcurrencyLimit(0, 3, 10).getLimit()).isEqualTo(3);
+    }
+
+    @Test
+    void growsWhileSaturatedAndRttIsStable() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 1, 100);
+
+        for (int round = 0; round < 20; round++) {
+            saturate(limit, FAST);
+        }
+
+        assertThat(limit.getLimit()).isGreaterThan(10).isLessThanOrEqualTo(100);
+    }
+
+    @Test
+    void shrinksWhenRttRises() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(50, 5, 100);
+        saturate(limit, FAST);
+        int before = limit.getLimit();
+
+        for (int round = 0; round < 20; round++) {
+            saturate(limit, SLOW);
+        }
+
+        assertThat(limit.getLimit()).isLessThan(before).isGreaterThanOrEqualTo(5);
+    }
+
+    @Test
+    void ignoresSamplesWhenMostlyIdle() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 1, 100);
+        limit.tryAcquire();
+        limit.release(FAST);
+
+        // 한도의 절반도 쓰지 않는 중의 느린 응답은 한도와 상관없다
+        for (int i = 0; i < 100; i++) {
+            limit.tryAcquire();
+            limit.release(SLOW);
+        }
+
+        assertThat(limit.getLimit()).isEqualTo(10);
+    }
+
+    /**
+     * 한도만큼 받아두고 모두 rttNanos 로 돌려준다
+     */
+    private static void saturate(AdaptiveConcurrencyLimit limit, long rttNanos) {
+        int acquired = 0;
+        while (limit.tryAcquire()) {
+            acquired++;
+        }
+        for (int i = 0; i < acquired; i++) {
+            limit.release(rttNanos);
+        }
+    }
+}
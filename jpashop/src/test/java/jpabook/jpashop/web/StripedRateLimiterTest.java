@@ -0,0 +1,67 @@
+package jpabook.jpashop.web;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StripedRateLimiterTest {
+
+    // 초당 1개라 테스트 도중에는 토큰이 다시 채워지지 않는다
+    private final StripedRateLimiter limiter = new StripedRateLimiter(1024, 1, 3);
+
+    @Test
+    void allowsBurstThenRejects() {
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiter.tryAcquire(1L)).isZero();
+        }
+
+        long wait = limiter.tryAcquire(1L);
+        assertThat(wait).isPositive().isLessThanOrEqualTo(TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Test
+    void rejectedAcquireDoesNotConsumeToken() {
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire(1L);
+        }
+        for (int i = 0; i < 10; i++) {
+            assertThat(limiter.tryAcquire(1L)).isPositive();
+        }
+
+        limiter.release(1L);
+        assertThat(limiter.tryAcquire(1L)).isZero();
+    }
+
+    @Test
+    void releaseRefundsOneToken() {
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire(1L);
+        }
+        assertThat(limiter.tryAcquire(1L)).isPositive();
+
+        // 뒤의 검사에서 거절된 요청의 토큰을 돌려놓으면 한번 더 받을 수 있다
+        limiter.release(1L);
+        limiter.release(1L);
+        assertThat(limiter.tryAcquire(1L)).isZero();
+        assertThat(limiter.tryAcquire(1L)).isZero();
+        assertThat(limiter.tryAcquire(1L)).isPositive();
+    }
+
+    @Test
+    void keysInSameStripeShareLimit() {
+        StripedRateLimiter single = new StripedRateLimiter(1, 1, 2);
+
+        assertThat(single.tryAcquire(1L)).isZero();
+        assertThat(single.tryAcquire(2L)).isZero();
+        assertThat(single.tryAcquire(3L)).isPositive();
+    }
+
+    @Test
+    void rejectsInvalidArguments() {
+        assertThatThrownBy(() -> new StripedRateLimiter(16, 0, 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new StripedRateLimiter(16, 1, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}